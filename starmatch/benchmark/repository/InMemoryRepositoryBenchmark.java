@@ -0,0 +1,88 @@
+package repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import model.User;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares {@link ConcurrentInMemoryRepository} with {@link InMemoryRepository} under a mixed load of
+ * three reader threads and one writer thread sharing one repository.
+ * <p>
+ * {@link InMemoryRepository} is not thread-safe, so its operations are serialized on the repository,
+ * which is what a caller sharing it between sessions has to do. Run with
+ * {@code mvn -Pbenchmark package && java -jar target/benchmarks.jar InMemoryRepositoryBenchmark}.
+ * </p>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryRepositoryBenchmark {
+    private static final int USERS = 10_000;
+
+    @Param({"concurrent", "in-memory"})
+    public String repository;
+
+    private Repository<User> users;
+    private boolean serialized;
+
+    @Setup
+    public void setUp() {
+        serialized = repository.equals("in-memory");
+        users = serialized ? new InMemoryRepository<>() : new ConcurrentInMemoryRepository<>();
+        for (int id = 1; id <= USERS; id++) {
+            users.create(newUser(id));
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public User get() {
+        int id = 1 + ThreadLocalRandom.current().nextInt(USERS);
+        if (serialized) {
+            synchronized (users) {
+                return users.get(id);
+            }
+        }
+        return users.get(id);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public User findByEmail() {
+        String email = "user" + (1 + ThreadLocalRandom.current().nextInt(USERS)) + "@starmatch.test";
+        if (serialized) {
+            synchronized (users) {
+                return users.findByUnique("email", email);
+            }
+        }
+        return users.findByUnique("email", email);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void update() {
+        User user = newUser(1 + ThreadLocalRandom.current().nextInt(USERS));
+        if (serialized) {
+            synchronized (users) {
+                users.update(user);
+            }
+            return;
+        }
+        users.update(user);
+    }
+
+    private static User newUser(int id) {
+        return new User(id, "User " + id, LocalDate.of(1990, 1, 1).plusDays(id % 3650), LocalTime.NOON,
+                "Bucharest", "user" + id + "@starmatch.test", "password");
+    }
+}
@@ -1,7 +1,10 @@
 import model.*;
+import repository.CachingRepository;
+import repository.ConnectionPool;
 import repository.InFileRepository;
 import repository.InMemoryRepository;
 import repository.Repository;
+import repository.DBRepo.*;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -748,8 +751,15 @@ public class ConsoleApp {
 
     /**
      * Main function where the inMemoryRepositories, InFileRepositories are initialized and the application starts.
+     * Started with {@code --db}, the application runs on the SQLite database instead.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--db")) {
+            ConsoleApp consoleAppDB = new ConsoleApp(new StarMatchController(createDatabaseService("jdbc:sqlite:starmatchDB.db")));
+            consoleAppDB.start();
+            return;
+        }
+
         Repository<User> userRepository = createInMemoryUserRepository();
         Repository<Admin> adminRepository = createInMemoryAdminRepository();
         Repository<StarSign> signRepository = createInMemoryStarSignRepository();
@@ -761,11 +771,11 @@ public class ConsoleApp {
         ConsoleApp consoleApp = new ConsoleApp(starMatchController);
 //        consoleApp.start();
 //
-        Repository<User> userFileRepo = new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\users.txt", User.class);
-        Repository<Admin> adminFileRepo = new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\admins.txt", Admin.class);
-        Repository<StarSign> starSignFileRepo = new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\starsigns.txt", StarSign.class);
-        Repository<Quote> quoteFileRepo = new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\quotes.txt", Quote.class);
-        Repository<Trait> traitFileRepo = new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\traits.txt", Trait.class);
+        Repository<User> userFileRepo = new CachingRepository<>(new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\users.txt", User.class), 1024);
+        Repository<Admin> adminFileRepo = new CachingRepository<>(new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\admins.txt", Admin.class), 1024);
+        Repository<StarSign> starSignFileRepo = new CachingRepository<>(new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\starsigns.txt", StarSign.class), 1024);
+        Repository<Quote> quoteFileRepo = new CachingRepository<>(new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\quotes.txt", Quote.class), 1024);
+        Repository<Trait> traitFileRepo = new CachingRepository<>(new InFileRepository<>("C:\\Users\\Cristina\\IdeaProjects\\StarMatch\\starmatch\\src\\files\\traits.txt", Trait.class), 1024);
 
 //        Repository<User> userFileRepo = new InFileRepository<User>("C:\\Users\\andre\\IntelliJProjects\\Sem2\\StarMatch\\starmatch\\src\\files\\users.txt", User.class);
 //        Repository<Admin> adminFileRepo = new InFileRepository<Admin>("C:\\Users\\andre\\IntelliJProjects\\Sem2\\StarMatch\\starmatch\\src\\files\\admins.txt", Admin.class);
@@ -780,6 +790,17 @@ public class ConsoleApp {
         consoleAppFile.start();
     }
 
+    /**
+     * Service backed by the SQLite database, with every repository sharing one connection pool,
+     * including the store of calculated compatibilities.
+     */
+    private static StarMatchService createDatabaseService(String dbUrl) {
+        ConnectionPool pool = new ConnectionPool(dbUrl, "", "");
+        TraitDBRepository traitDBRepo = new TraitDBRepository(pool);
+        return new StarMatchService(new UserDBRepository(pool), new AdminDBRepository(pool), new StarSignDBRepository(pool, traitDBRepo),
+                new QuoteDBRepository(pool), traitDBRepo, new CompatibilityDBRepository(pool));
+    }
+
     /**
      * User InMemoryRepository
      */
@@ -262,7 +262,7 @@ public class StarMatchController {
      * @return the filtered list of quotes
      */
     public List<Quote> filterQuotes(Element element){
-        return starMatchService.filterQuotesByElement(starMatchService.getQuotes(), element);
+        return starMatchService.filterQuotesByElement(element);
     }
 
     /**
@@ -271,7 +271,7 @@ public class StarMatchController {
      * @return the filtered list of users
      */
     public List<User> filterUsers(int year){
-        return starMatchService.filterUsersByYear(starMatchService.getUsers(), year);
+        return starMatchService.filterUsersByYear(year);
     }
 
     /**
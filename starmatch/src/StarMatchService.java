@@ -1,10 +1,13 @@
 import model.*;
+import repository.CompatibilityRepository;
+import repository.InMemoryCompatibilityRepository;
 import repository.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * StarMatchService provides methods for managing users, admins, quotes, traits, and compatibility calculations
@@ -16,16 +19,25 @@ public class StarMatchService {
     private final Repository<StarSign> signRepository;
     private final Repository<Quote> quoteRepository;
     private final Repository<Trait> traitRepository;
+    private final CompatibilityRepository compatibilityRepository;
 
     /**
-     * Initializes StarMatchService with the given repositories.
+     * Initializes StarMatchService with the given repositories, keeping calculated compatibilities in memory.
      */
     public StarMatchService(Repository<User> userRepository, Repository<Admin> adminRepository, Repository<StarSign> signRepository, Repository<Quote> quoteRepository, Repository<Trait> traitRepository) {
+        this(userRepository, adminRepository, signRepository, quoteRepository, traitRepository, new InMemoryCompatibilityRepository());
+    }
+
+    /**
+     * Initializes StarMatchService with the given repositories, storing calculated compatibilities in the given repository.
+     */
+    public StarMatchService(Repository<User> userRepository, Repository<Admin> adminRepository, Repository<StarSign> signRepository, Repository<Quote> quoteRepository, Repository<Trait> traitRepository, CompatibilityRepository compatibilityRepository) {
         this.userRepository = userRepository;
         this.adminRepository = adminRepository;
         this.signRepository = signRepository;
         this.quoteRepository = quoteRepository;
         this.traitRepository = traitRepository;
+        this.compatibilityRepository = compatibilityRepository;
     }
 
     /**
@@ -36,8 +48,8 @@ public class StarMatchService {
      * @return true if login is valid, false otherwise
      */
     public boolean validateUserLogin(String email, String password) {
-        return userRepository.getAll().stream()
-                .anyMatch(user -> user.getEmail().equals(email) && user.getPassword().equals(password));
+        User user = userRepository.findByUnique("email", email);
+        return user != null && user.getPassword().equals(password);
     }
 
     /**
@@ -48,30 +60,45 @@ public class StarMatchService {
      * @return true if login is valid, false otherwise
      */
     public boolean validateAdminLogin(String email, String password) {
-        return adminRepository.getAll().stream()
-                .anyMatch(admin -> admin.getEmail().equals(email) && admin.getPassword().equals(password));
+        Admin admin = adminRepository.findByUnique("email", email);
+        return admin != null && admin.getPassword().equals(password);
     }
 
     /**
      * Creates a new user and adds them to the user repository.
      */
     public void createUser(String name, LocalDate birthDate, LocalTime birthTime, String birthPlace, String email, String password) {
-        User newUser = new User(getMaxId(userRepository) + 1, name, birthDate, birthTime, birthPlace, email, password);
+        User newUser = new User(userRepository.nextId(), name, birthDate, birthTime, birthPlace, email, password);
         userRepository.create(newUser);
     }
 
+    /**
+     * Imports several users at once, assigning them consecutive new IDs.
+     * The users are written to the repository with a single bulk operation.
+     *
+     * @param users the users to import
+     */
+    public void importUsers(List<User> users) {
+        int nextId = users.isEmpty() ? 0 : userRepository.reserveIds(users.size());
+        for (User user : users) {
+            user.setId(nextId++);
+        }
+        userRepository.createAll(users);
+    }
+
     /**
      * Removes a user by ID from the user repository.
      */
     public void removeUser(Integer userId) {
         userRepository.delete(userId);
+        compatibilityRepository.deleteForUser(userId);
     }
 
     /**
      * Creates a new admin and adds them to the admin repository.
      */
     public void createAdmin(String name, String email, String password) {
-        Admin newAdmin = new Admin(getMaxId(adminRepository) + 1, name, email, password);
+        Admin newAdmin = new Admin(adminRepository.nextId(), name, email, password);
         adminRepository.create(newAdmin);
     }
 
@@ -104,10 +131,24 @@ public class StarMatchService {
                 break;
             }
         }
-        Quote newQuote = new Quote(getMaxId(quoteRepository) + 1, quoteElement, newQuoteText);
+        Quote newQuote = new Quote(quoteRepository.nextId(), quoteElement, newQuoteText);
         quoteRepository.create(newQuote);
     }
 
+    /**
+     * Adds several quotes at once, assigning them consecutive new IDs.
+     * The quotes are written to the repository with a single bulk operation.
+     *
+     * @param quotes the quotes to add
+     */
+    public void createQuotes(List<Quote> quotes) {
+        int nextId = quotes.isEmpty() ? 0 : quoteRepository.reserveIds(quotes.size());
+        for (Quote quote : quotes) {
+            quote.setId(nextId++);
+        }
+        quoteRepository.createAll(quotes);
+    }
+
     /**
      * Removes a quote by ID from the quote repository.
      */
@@ -128,10 +169,24 @@ public class StarMatchService {
      * Creates a new trait and adds it to the trait repository.
      */
     public void createTrait(String traitName, Element element){
-        Trait trait=new Trait(element,traitName,getMaxId(traitRepository)+1);
+        Trait trait=new Trait(element,traitName,traitRepository.nextId());
         traitRepository.create(trait);
     }
 
+    /**
+     * Adds several traits at once, assigning them consecutive new IDs.
+     * The traits are written to the repository with a single bulk operation.
+     *
+     * @param traits the traits to add
+     */
+    public void createTraits(List<Trait> traits) {
+        int nextId = traits.isEmpty() ? 0 : traitRepository.reserveIds(traits.size());
+        for (Trait trait : traits) {
+            trait.setId(nextId++);
+        }
+        traitRepository.createAll(traits);
+    }
+
     /**
      * Removes a trait by ID from the trait repository.
      */
@@ -151,16 +206,18 @@ public class StarMatchService {
 
     /**
      * Retrieves the maximum ID from the given repository.
+     * New IDs are allocated with {@link Repository#nextId()} instead, which does not scan the repository.
      *
      * @param repository the repository containing elements with IDs
      * @param <T>        a type that implements the HasId interface
      * @return the maximum ID found in the repository, or 0 if empty
      */
     public <T extends HasId> int getMaxId(Repository<T> repository) {
-        return repository.getAll().stream()
-                .mapToInt(T::getId)
-                .max()
-                .orElse(0);
+        try (Stream<T> objects = repository.stream()) {
+            return objects.mapToInt(T::getId)
+                    .max()
+                    .orElse(0);
+        }
     }
 
     /**
@@ -188,14 +245,13 @@ public class StarMatchService {
     public List<Quote> getQuotes() { return quoteRepository.getAll();}
 
     /**
-     * Retrieves a list of all traits.
+     * Retrieves a list of all traits, ordered by their element (Air, Earth, Fire, Water).
+     * The repository does the ordering, so a database reads the traits through its element index.
      *
      * @return a list of all Trait objects
      */
     public List<Trait> getTraits(){
-        List<Trait> traits = traitRepository.getAll();
-        sortTraitsByElement(traits);
-        return traits;}
+        return traitRepository.getAllOrderedBy("element");}
 
     /**
      * Retrieves a user by their email address.
@@ -204,10 +260,21 @@ public class StarMatchService {
      * @return the User object if found, or null if not found
      */
     public User getUserByEmail(String email) {
-        return userRepository.getAll().stream()
-                .filter(user -> user.getEmail().equals(email))
-                .findFirst()
-                .orElse(null);
+        return userRepository.findByUnique("email", email);
+    }
+
+    /**
+     * Retrieves a user by their email address, failing if there is none.
+     *
+     * @param email the user's email address
+     * @return the User object with that email
+     * @throws NoSuchElementException if a user with the specified email does not exist
+     */
+    private User findUserByEmail(String email) {
+        User user = userRepository.findByUnique("email", email);
+        if (user == null)
+            throw new NoSuchElementException("User with that email does not exist");
+        return user;
     }
 
     /**
@@ -259,7 +326,7 @@ public class StarMatchService {
             default -> sunSignName = "Unknown";
         }
 
-        return signRepository.getAll().stream().filter(starSign -> starSign.getStarName().equals(sunSignName)).findFirst().orElse(null);
+        return findStarSign(sunSignName);
     }
 
     /**
@@ -275,7 +342,7 @@ public class StarMatchService {
         if(moonIndex<0)
             moonIndex+=12;
         String moonSignName = getZodiacSignFromIndex(moonIndex);
-        return signRepository.getAll().stream().filter(starSign -> starSign.getStarName().equals(moonSignName)).findFirst().orElse(null);
+        return findStarSign(moonSignName);
     }
 
     /**
@@ -288,7 +355,19 @@ public class StarMatchService {
         int hour = birthTime.getHour();
         int risingIndex = (hour / 2) % 12;
         String risingSign= getZodiacSignFromIndex(risingIndex);
-        return signRepository.getAll().stream().filter(starSign -> starSign.getStarName().equals(risingSign)).findFirst().orElse(null);
+        return findStarSign(risingSign);
+    }
+
+    /**
+     * Retrieves a star sign by its name, stopping at the first match.
+     *
+     * @param starName the name of the star sign
+     * @return the StarSign object, or null if not found
+     */
+    private StarSign findStarSign(String starName) {
+        try (Stream<StarSign> signs = signRepository.stream()) {
+            return signs.filter(starSign -> starSign.getStarName().equals(starName)).findFirst().orElse(null);
+        }
     }
 
     /**
@@ -331,7 +410,10 @@ public class StarMatchService {
     public String getPersonalizedQuote(User user){
         NatalChart chart=getNatalChart(user);
         Element element=chart.getPlanets().getFirst().getSign().getElement();
-        List<String> quotes=quoteRepository.getAll().stream().filter(quote -> quote.getElement().equals(element)).map(Quote::getQuoteText).toList();
+        List<String> quotes;
+        try (Stream<Quote> allQuotes = quoteRepository.stream()) {
+            quotes = allQuotes.filter(quote -> quote.getElement().equals(element)).map(Quote::getQuoteText).toList();
+        }
         Random random=new Random();
         return quotes.get(random.nextInt(quotes.size()));
     }
@@ -341,6 +423,8 @@ public class StarMatchService {
      */
     public void updateUser(User user,String name, String email, String password, LocalDate birthDate, LocalTime birthTime, String birthPlace){
         User user1 = userRepository.get(user.getId());
+        LocalDate oldBirthDate = user1.getBirthDate();
+        LocalTime oldBirthTime = user1.getBirthTime();
         if (!name.isBlank()) user1.setName(name);
         if (!email.isBlank()) user1.setEmail(email);
         if (!password.isBlank()) user1.setPassword(password);
@@ -348,6 +432,29 @@ public class StarMatchService {
         if (birthTime!=null) user1.setBirthTime(birthTime);
         if (!birthPlace.isBlank()) user1.setBirthPlace(birthPlace);
         userRepository.update(user1);
+        if (!Objects.equals(oldBirthDate, user1.getBirthDate()) || !Objects.equals(oldBirthTime, user1.getBirthTime()))
+            recalculateCompatibilities(user1);
+    }
+
+    /**
+     * Recalculates the stored compatibilities a user takes part in, after the user's natal chart changed.
+     *
+     * @param user the user whose birth data changed
+     */
+    private void recalculateCompatibilities(User user) {
+        NatalChart chartUser = getNatalChart(user);
+        for (Compatibility stored : compatibilityRepository.getForUser(user.getId())) {
+            boolean userFirst = stored.getUserId().equals(user.getId());
+            User other = userRepository.get(userFirst ? stored.getFriendId() : stored.getUserId());
+            if (other == null) {
+                compatibilityRepository.delete(stored.getUserId(), stored.getFriendId());
+                continue;
+            }
+            NatalChart chartOther = getNatalChart(other);
+            long score = userFirst ? calculateScore(chartUser, chartOther) : calculateScore(chartOther, chartUser);
+            stored.setCompatibilityScore(score);
+            compatibilityRepository.save(stored);
+        }
     }
 
     /**
@@ -357,7 +464,9 @@ public class StarMatchService {
      * @return a list of users excluding the specified user
      */
     public List<User> getAllUsersExcept(User currentUser){
-        return userRepository.getAll().stream().filter(user -> !user.equals(currentUser)).collect(Collectors.toList());
+        try (Stream<User> users = userRepository.stream()) {
+            return users.filter(user -> !user.equals(currentUser)).collect(Collectors.toList());
+        }
     }
 
     /**
@@ -370,15 +479,10 @@ public class StarMatchService {
     public void addFriend(User user, String friendEmail) {
         if(user.getEmail().equals(friendEmail))
             throw new IllegalArgumentException("You cannot add yourself as your friend");
-        User friend = userRepository.getAll().stream()
-                .filter(user1 -> user1.getEmail().equals(friendEmail))
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException("User with that email does not exist"));
-
-        if (!user.getRawFriendEmails().contains(friendEmail)) {
-            user.getRawFriendEmails().add(friendEmail);
-            user.getFriends().add(friend);
+        User friend = findUserByEmail(friendEmail);
 
+        if (user.addFriendEmail(friend.getEmail())) {
+            attachFriendResolver(user);
             userRepository.update(user);
         }
     }
@@ -391,41 +495,46 @@ public class StarMatchService {
      * @return a list of User objects representing the user's friends
      */
     public List<User> getFriends(User user) {
-        refreshFriendsList(user);
+        attachFriendResolver(user);
         return user.getFriends();
     }
 
-    private void refreshFriendsList(User user) {
-        List<User> resolvedFriends = user.getRawFriendEmails().stream()
-                .map(email -> userRepository.getAll().stream()
-                        .filter(u -> u.getEmail().equals(email))
-                        .findFirst()
-                        .orElse(null))
-                .filter(Objects::nonNull)
-                .toList();
-        user.setFriends(resolvedFriends);
+    /**
+     * Lets a user that was not loaded with a friend resolver look its friends up in the user repository.
+     */
+    private void attachFriendResolver(User user) {
+        if (!user.hasFriendResolver()) {
+            user.setFriendResolver(email -> userRepository.findByUnique("email", email));
+        }
     }
 
 
     /**
      * Removes a friend from the user's friend list by email.
+     * The stored compatibilities of the pair are only deleted once both users were written;
+     * if that fails, the friendship is restored on the user objects and the failure is rethrown.
      *
      * @param user the user removing a friend
      * @param friendEmail the email of the friend to remove
      * @throws NoSuchElementException if a user with the specified email does not exist
      */
     public void removeFriend(User user, String friendEmail) {
-        User friend = userRepository.getAll().stream()
-                .filter(u -> u.getEmail().equals(friendEmail))
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException("User with that email does not exist"));
-
-        if (user.getRawFriendEmails().contains(friendEmail)) {
-            user.getRawFriendEmails().remove(friendEmail);
-            friend.getRawFriendEmails().remove(user.getEmail());
-
-            userRepository.update(user);
-            userRepository.update(friend);
+        User friend = findUserByEmail(friendEmail);
+
+        if (user.removeFriendEmail(friendEmail)) {
+            boolean friendHadUser = friend.removeFriendEmail(user.getEmail());
+
+            try {
+                userRepository.commit(userRepository.beginWork().update(user).update(friend));
+            } catch (RuntimeException e) {
+                user.addFriendEmail(friendEmail);
+                if (friendHadUser) {
+                    friend.addFriendEmail(user.getEmail());
+                }
+                throw e;
+            }
+            compatibilityRepository.delete(user.getId(), friend.getId());
+            compatibilityRepository.delete(friend.getId(), user.getId());
         }
     }
 
@@ -435,17 +544,41 @@ public class StarMatchService {
      *
      * @param user the user for whom compatibility is calculated
      * @param friendEmail the email of the friend to calculate compatibility with
-     * @return a Compatibility object with the calculated compatibility score
+     * @return a Compatibility object with the calculated compatibility score, a copy of the stored one
      * @throws NoSuchElementException if the specified friend is not found or not in the user's friend list
      */
     public Compatibility calculateCompatibility(User user, String friendEmail){
-        User friend=userRepository.getAll().stream().filter(user1 -> user1.getEmail().equals(friendEmail)).findFirst().orElseThrow(() -> new NoSuchElementException("User with that email does not exist"));
-        if(!user.getFriends().contains(friend) && !user.getRawFriendEmails().contains(friendEmail))
+        User friend=findUserByEmail(friendEmail);
+        if(!user.getRawFriendEmails().contains(friendEmail) && !user.getFriends().contains(friend))
             throw new NoSuchElementException("That User is not your friend");
 
-        NatalChart chartUser=getNatalChart(user);
-        NatalChart chartFriend=getNatalChart(friend);
+        Compatibility stored=compatibilityRepository.get(user.getId(),friend.getId());
+        if(stored!=null)
+            return copyOf(stored);
+
+        Compatibility compatibility=new Compatibility(calculateScore(getNatalChart(user),getNatalChart(friend)),friend.getId(),user.getId());
+        compatibilityRepository.save(compatibility);
+        return copyOf(compatibility);
+    }
+
+    /**
+     * Copies a compatibility, so callers cannot change the one held by the compatibility repository.
+     *
+     * @param compatibility the compatibility to copy
+     * @return a new Compatibility with the same users and score
+     */
+    private static Compatibility copyOf(Compatibility compatibility){
+        return new Compatibility(compatibility.getCompatibilityScore(),compatibility.getFriendId(),compatibility.getUserId());
+    }
 
+    /**
+     * Calculates the compatibility score between the natal charts of a user and a friend.
+     *
+     * @param chartUser the user's natal chart
+     * @param chartFriend the friend's natal chart
+     * @return the compatibility score, at most 100
+     */
+    private long calculateScore(NatalChart chartUser, NatalChart chartFriend){
         StarSign userSunSign=chartUser.getPlanets().getFirst().getSign();
         StarSign friendSunSign=chartFriend.getPlanets().getFirst().getSign();
         StarSign userMoonSign=chartUser.getPlanets().get(1).getSign();
@@ -461,7 +594,7 @@ public class StarMatchService {
         actualCompatibility=actualCompatibility/500000;
         if(actualCompatibility>100)
             actualCompatibility=100;
-        return new Compatibility(actualCompatibility,friend.getId(),user.getId());
+        return actualCompatibility;
     }
 
     /**
@@ -569,6 +702,19 @@ public class StarMatchService {
         return users.stream().filter(user -> user.getBirthDate().getYear() == year).collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves the users born in a specific year, sorted by birthdate.
+     * The year is looked up by the repository, so a database answers it from its birth date index.
+     *
+     * @param year the year to filter users by
+     * @return a list of users born in the specified year, or an empty list if none match
+     */
+    public List<User> filterUsersByYear(int year){
+        List<User> users = userRepository.findInRange("birthDate", LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+        sortUsersByBirthdate(users);
+        return users;
+    }
+
     /**
      * Filters the quotes to only include those associated with a specific element.
      * If the provided list is null or empty, or no quotes match the element, it returns an empty list.
@@ -583,6 +729,17 @@ public class StarMatchService {
         return quotes.stream().filter(quote -> quote.getElement().equals(element)).collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves the quotes associated with a specific element.
+     * The element is looked up by the repository, so a database answers it from its element index.
+     *
+     * @param element the element to filter quotes by
+     * @return a list of quotes associated with the specified element, or an empty list if none match or the element is null
+     */
+    public List<Quote> filterQuotesByElement(Element element){
+        return quoteRepository.findBy("element", element);
+    }
+
 
     /**
      * Calculates the most popular elements among users based on their sun signs.
@@ -603,9 +760,16 @@ public class StarMatchService {
 
     }
 
+    /**
+     * Retrieves the other users born in the same place as the given user.
+     * The place is looked up by the repository, so a database answers it from its birth place index.
+     *
+     * @param user the user whose birth place is matched
+     * @return a list of the users born in the same place, without the user itself
+     */
     public List<User> getFriendsNearMe(User user) {
-        ArrayList<User> usersNearMe = new ArrayList<>( userRepository.getAll().stream().filter(user1 -> user1.getBirthPlace().equals(user.getBirthPlace())).toList());
-        usersNearMe.removeIf(u -> u.getEmail().equals(user.getEmail()));
-        return usersNearMe;
+        List<User> users = userRepository.findBy("birthPlace", user.getBirthPlace());
+        users.removeIf(u -> u.getEmail().equals(user.getEmail()));
+        return users;
     }
 }
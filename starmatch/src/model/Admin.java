@@ -1,5 +1,8 @@
 package model;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Represents an Admin with a unique ID, name, email, and password.
  * Implements the {@link HasId} interface to provide an ID getter.
@@ -52,6 +55,16 @@ public class Admin implements HasId{
         this.name = name;
     }
 
+    /**
+     * Returns the unique keys of this admin: its email address.
+     *
+     * @return a map with the "email" key
+     */
+    @Override
+    public Map<String, Object> getUniqueKeys() {
+        return Collections.singletonMap("email", email);
+    }
+
     /**
      * Gets the password of this admin.
      *
@@ -98,6 +111,16 @@ public class Admin implements HasId{
         return id;
     }
 
+    /**
+     * Returns the unique ID of this admin without boxing it.
+     *
+     * @return the ID of the admin
+     */
+    @Override
+    public int getIntId() {
+        return id;
+    }
+
     /**
      * Returns a string representation of this admin.
      *
@@ -120,7 +143,7 @@ public class Admin implements HasId{
      */
     @Override
     public String convertObjectToLine() {
-        return id + "," + name + "," + email + "," + password;
+        return id + "," + Csv.quote(name) + "," + Csv.quote(email) + "," + Csv.quote(password);
     }
 
     /**
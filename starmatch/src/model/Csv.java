@@ -0,0 +1,76 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Helpers for writing and reading the fields of the CSV lines the models are stored as.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /**
+     * Quotes a value if it contains a comma, a double quote or a line break, so it stays one field
+     * of one record. Quotes inside the value are doubled.
+     *
+     * @param value The value to write.
+     * @return The value as a CSV field.
+     */
+    public static String quote(Object value) {
+        String text = String.valueOf(value);
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Parses a date, with a fast path for the {@code yyyy-MM-dd} format the models are written in.
+     *
+     * @param text The date text.
+     * @return The parsed date.
+     */
+    public static LocalDate parseDate(String text) {
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(text);
+    }
+
+    /**
+     * Parses a time, with a fast path for the {@code HH:mm} format the models are written in.
+     *
+     * @param text The time text.
+     * @return The parsed time.
+     */
+    public static LocalTime parseTime(String text) {
+        if (text.length() == 5 && text.charAt(2) == ':') {
+            int hour = digits(text, 0, 2);
+            int minute = digits(text, 3, 5);
+            if (hour >= 0 && minute >= 0) {
+                return LocalTime.of(hour, minute);
+            }
+        }
+        return LocalTime.parse(text);
+    }
+
+    /**
+     * @return The decimal number between the two positions, or -1 if it contains a non-digit.
+     */
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
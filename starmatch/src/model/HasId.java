@@ -1,6 +1,7 @@
 package model;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * A functional interface that represents an object with a unique identifier.
@@ -13,6 +14,16 @@ public interface HasId extends Serializable {
      */
     Integer getId();
 
+    /**
+     * Gets the unique identifier of the object as a primitive.
+     * Classes that store their identifier as an {@code int} override it to avoid boxing.
+     *
+     * @return The unique identifier.
+     */
+    default int getIntId() {
+        return getId();
+    }
+
     /**
      * Converts the object to a CSV line format.
      * <p>
@@ -24,6 +35,33 @@ public interface HasId extends Serializable {
      */
     String convertObjectToLine(); // Converts object to CSV line
 
+    /**
+     * Gets the values of the object's unique keys, by key name.
+     * <p>
+     * Repositories use these keys to maintain secondary indexes, so lookups such as finding a user
+     * by email do not have to scan all objects. Objects without unique keys return an empty map.
+     * </p>
+     *
+     * @return A map from key name to key value.
+     */
+    default Map<String, Object> getUniqueKeys() {
+        return Map.of();
+    }
+
+    /**
+     * Gets the values of the object's searchable fields that are not unique, by field name.
+     * <p>
+     * Repositories use these fields to select or order objects without loading all of them, for example
+     * with a query on an indexed column. A null value means the field is not set. Objects without such
+     * fields return an empty map.
+     * </p>
+     *
+     * @return A map from field name to field value.
+     */
+    default Map<String, Object> getIndexedFields() {
+        return Map.of();
+    }
+
     /**
      * Creates an object from an array of fields.
      * <p>
@@ -42,6 +42,16 @@ public abstract class Person implements HasId{
         return id;
     }
 
+    /**
+     * Gets the unique ID of this person without boxing it.
+     *
+     * @return the ID of the person
+     */
+    @Override
+    public int getIntId() {
+        return id;
+    }
+
     /**
      * Sets the ID for this person.
      *
@@ -1,5 +1,9 @@
 package model;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Represents a quote associated with a specific elemental attribute (e.g., Fire, Water, Air, Earth).
  * Implements the {@link HasId} interface to provide an ID getter.
@@ -31,6 +35,16 @@ public class Quote implements HasId {
         return element;
     }
 
+    /**
+     * Returns the searchable fields of this quote: its element.
+     *
+     * @return a map with the "element" field
+     */
+    @Override
+    public Map<String, Object> getIndexedFields() {
+        return Collections.singletonMap("element", element);
+    }
+
     /**
      * Sets the element associated with this quote.
      *
@@ -98,7 +112,7 @@ public class Quote implements HasId {
      */
     @Override
     public String convertObjectToLine() {
-        return id + "," + element + "," + quoteText;
+        return id + "," + element + "," + Csv.quote(quoteText);
     }
 
     /**
@@ -110,7 +124,8 @@ public class Quote implements HasId {
     public static HasId createObjectFromFields(String[] fields) {
         Integer id = Integer.parseInt(fields[0]);
         Element element = Element.valueOf(fields[1]);
-        String quoteText = fields[2];
+        // lines written before quoting was introduced may hold unquoted commas in the text
+        String quoteText = fields.length > 3 ? String.join(",", Arrays.copyOfRange(fields, 2, fields.length)) : fields[2];
         return new Quote(id, element, quoteText);
     }
 }
@@ -126,8 +126,9 @@ public class StarSign implements HasId{
     public String convertObjectToLine() {
         String traitsString = traits.stream()
                 .map(Trait::getTraitName)
+                .map(Csv::quote)
                 .collect(Collectors.joining(","));
-        return id + "," + starName + "," + element + "," + traitsString;
+        return id + "," + Csv.quote(starName) + "," + element + "," + traitsString;
     }
 
     /**
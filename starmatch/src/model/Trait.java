@@ -1,5 +1,8 @@
 package model;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Represents a trait associated with an element and a unique identifier.
  * Implements the {@link HasId} interface to provide an ID getter.
@@ -31,6 +34,16 @@ public class Trait implements HasId {
         return element;
     }
 
+    /**
+     * Returns the searchable fields of this trait: its element.
+     *
+     * @return a map with the "element" field
+     */
+    @Override
+    public Map<String, Object> getIndexedFields() {
+        return Collections.singletonMap("element", element);
+    }
+
     /**
      * Sets the element for this trait.
      *
@@ -58,6 +71,15 @@ public class Trait implements HasId {
         this.traitName = traitName;
     }
 
+    /**
+     * Sets the unique ID for this trait.
+     *
+     * @param id the new ID for the trait
+     */
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
     /**
      * Returns the unique ID of this trait.
      *
@@ -88,7 +110,7 @@ public class Trait implements HasId {
      */
     @Override
     public String convertObjectToLine() {
-        return id + "," + element + "," + traitName;
+        return id + "," + element + "," + Csv.quote(traitName);
     }
 
     /**
@@ -4,11 +4,21 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Represents a user with personal details, login information, and a list of friends.
  * Extends the {@link Person} class to include attributes for email and password.
+ * <p>
+ * Friends are stored as a list of email addresses. The matching User objects are only looked up,
+ * through a resolver supplied by the repository, when {@link #getFriends()} is first called, and
+ * are cached until the friend emails change.
+ * </p>
  */
 public class User extends Person {
 
@@ -16,6 +26,7 @@ public class User extends Person {
     private String password;
     private List<User> friends;
     private List<String> rawFriendEmails;
+    private transient Function<String, User> friendResolver;
 
     /**
      * Constructs a User with the specified details and initializes an empty friends list.
@@ -32,7 +43,6 @@ public class User extends Person {
         super(id, name, birthDate, birthTime, birthPlace);
         this.email = email;
         this.password = password;
-        this.friends = new ArrayList<>();
         this.rawFriendEmails = new ArrayList<>();
     }
 
@@ -54,6 +64,29 @@ public class User extends Person {
         this.email = email;
     }
 
+    /**
+     * Returns the unique keys of this user: its email address.
+     *
+     * @return a map with the "email" key
+     */
+    @Override
+    public Map<String, Object> getUniqueKeys() {
+        return Collections.singletonMap("email", email);
+    }
+
+    /**
+     * Returns the searchable fields of this user: its birth place and birth date.
+     *
+     * @return a map with the "birthPlace" and "birthDate" fields
+     */
+    @Override
+    public Map<String, Object> getIndexedFields() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("birthPlace", birthPlace);
+        fields.put("birthDate", birthDate);
+        return fields;
+    }
+
     /**
      * Gets the password of the user.
      *
@@ -73,11 +106,23 @@ public class User extends Person {
     }
 
     /**
-     * Gets the list of friends for this user.
+     * Gets the list of friends for this user, resolving the friend emails on first access.
+     * Emails the resolver does not know are skipped; without a resolver the list is empty.
      *
      * @return a list of friends
      */
     public List<User> getFriends() {
+        if (friends == null) {
+            friends = new ArrayList<>(rawFriendEmails.size());
+            if (friendResolver != null) {
+                for (String friendEmail : rawFriendEmails) {
+                    User friend = friendResolver.apply(friendEmail);
+                    if (friend != null) {
+                        friends.add(friend);
+                    }
+                }
+            }
+        }
         return friends;
     }
 
@@ -90,6 +135,53 @@ public class User extends Person {
         this.friends = new ArrayList<>(friends);
     }
 
+    /**
+     * Sets the function used to look up friends by email, dropping the cached friend list.
+     * The resolver is not serialized, so a deserialized user needs a new one.
+     *
+     * @param friendResolver finds the user with an email, or returns null
+     */
+    public void setFriendResolver(Function<String, User> friendResolver) {
+        this.friendResolver = friendResolver;
+        this.friends = null;
+    }
+
+    /**
+     * @return whether a friend resolver was set for this user
+     */
+    public boolean hasFriendResolver() {
+        return friendResolver != null;
+    }
+
+    /**
+     * Adds an email to the user's friend emails, dropping the cached friend list.
+     *
+     * @param friendEmail the email of the new friend
+     * @return true if the email was not a friend email yet
+     */
+    public boolean addFriendEmail(String friendEmail) {
+        if (rawFriendEmails.contains(friendEmail)) {
+            return false;
+        }
+        rawFriendEmails.add(friendEmail);
+        friends = null;
+        return true;
+    }
+
+    /**
+     * Removes an email from the user's friend emails, dropping the cached friend list.
+     *
+     * @param friendEmail the email of the friend to remove
+     * @return true if the email was a friend email
+     */
+    public boolean removeFriendEmail(String friendEmail) {
+        if (!rawFriendEmails.remove(friendEmail)) {
+            return false;
+        }
+        friends = null;
+        return true;
+    }
+
     /**
      * Returns a string representation of the user, including their personal details and friends.
      *
@@ -105,7 +197,7 @@ public class User extends Person {
                 ", birthDate=" + birthDate +
                 ", birthTime=" + birthTime +
                 ", birthPlace='" + birthPlace + '\'' +
-                ", friends=" + friends +
+                ", friends=" + rawFriendEmails +
                 '}';
     }
 
@@ -117,9 +209,11 @@ public class User extends Person {
      */
     @Override
     public String convertObjectToLine() {
-        String rawFriendEmailsStr = String.join(",", rawFriendEmails); // Serialize raw friend emails
-        return id + "," + name + "," + email + "," + password + "," + birthDate + "," +
-                birthTime + "," + birthPlace + "," + rawFriendEmailsStr;
+        String rawFriendEmailsStr = rawFriendEmails.stream() // Serialize raw friend emails
+                .map(Csv::quote)
+                .collect(Collectors.joining(","));
+        return id + "," + Csv.quote(name) + "," + Csv.quote(email) + "," + Csv.quote(password) + "," + birthDate + "," +
+                birthTime + "," + Csv.quote(birthPlace) + "," + rawFriendEmailsStr;
     }
 
 
@@ -136,8 +230,8 @@ public class User extends Person {
         String name = fields[1];
         String email = fields[2];
         String password = fields[3];
-        LocalDate birthDate = LocalDate.parse(fields[4]);
-        LocalTime birthTime = LocalTime.parse(fields[5]);
+        LocalDate birthDate = Csv.parseDate(fields[4]);
+        LocalTime birthTime = Csv.parseTime(fields[5]);
         String birthPlace = fields[6];
 
         User user = new User(id, name, birthDate, birthTime, birthPlace, email, password);
@@ -156,11 +250,12 @@ public class User extends Person {
     /**
      * Gets the raw list of friend emails.
      * This list represents the emails of the user's friends, stored as raw data.
+     * Use {@link #addFriendEmail(String)} and {@link #removeFriendEmail(String)} to change it.
      *
-     * @return the raw list of friend emails
+     * @return an unmodifiable view of the raw list of friend emails
      */
     public List<String> getRawFriendEmails() {
-        return rawFriendEmails;
+        return Collections.unmodifiableList(rawFriendEmails);
     }
 
     /**
@@ -171,5 +266,6 @@ public class User extends Person {
      */
     public void setRawFriendEmails(List<String> rawFriendEmails) {
         this.rawFriendEmails = new ArrayList<>(rawFriendEmails);
+        this.friends = null;
     }
 }
@@ -0,0 +1,156 @@
+package repository;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import model.HasId;
+import repository.codec.BinaryCodec;
+import repository.codec.BinaryReader;
+import repository.codec.BinaryWriter;
+import repository.codec.CodecRegistry;
+import repository.codec.ReferenceTable;
+
+/**
+ * A file repository that stores its objects as compact binary records instead of CSV lines.
+ * <p>
+ * The file starts with a four-byte header, followed by one record per object: the length of the
+ * record as a varint and the fields written by the entity's {@link BinaryCodec}. References between
+ * the objects of the file, such as a user's friends, are stored as IDs through a {@link ReferenceTable};
+ * files written before that (header version 1) are still read. Loading reads the
+ * whole file into memory with one call and decodes the records straight from that array, with no
+ * line splitting or text parsing. Snapshot handling, unique lookups and the id sequence are shared
+ * with {@link InFileRepository} through {@link SnapshotFileRepository}; every write rewrites the
+ * file through a temporary file that is moved over the old one.
+ * </p>
+ *
+ * @param <T> The type of objects stored, which must implement HasId.
+ */
+public class BinaryFileRepository<T extends HasId> extends SnapshotFileRepository<T> {
+    private static final byte[] HEADER = {'S', 'M', 'B', 2};
+    private static final byte LEGACY_VERSION = 1;
+
+    private final BinaryCodec<T> codec;
+    private final BinaryWriter writer = new BinaryWriter();
+    private final BinaryWriter lengthWriter = new BinaryWriter(5);
+
+    /**
+     * Constructs a new BinaryFileRepository with the specified file path.
+     *
+     * @param filePath    The path to the file where data will be stored.
+     * @param entityClass The class type of T, whose binary codec is taken from the default {@link CodecRegistry}.
+     * @throws IllegalArgumentException If no binary codec is registered for the class.
+     */
+    public BinaryFileRepository(String filePath, Class<T> entityClass) {
+        this(filePath, CodecRegistry.getDefault().binary(entityClass));
+    }
+
+    /**
+     * Constructs a new BinaryFileRepository with the specified file path.
+     *
+     * @param filePath The path to the file where data will be stored.
+     * @param codec    The codec encoding and decoding the objects.
+     */
+    public BinaryFileRepository(String filePath, BinaryCodec<T> codec) {
+        super(filePath);
+        this.codec = codec;
+    }
+
+    /**
+     * Reads the whole file and decodes its records. A record that cannot be decoded is skipped using
+     * its length prefix, so the records after it are kept and survive the next rewrite. Only a length
+     * that is itself unreadable or runs past the end of the file ends the load.
+     *
+     * @return The data stored in the file, or an empty map if the file is empty or does not exist.
+     */
+    @Override
+    protected Map<Integer, T> readDataFromFile() {
+        Map<Integer, T> data = new LinkedHashMap<>();
+        File file = new File(filePath);
+        if (!file.exists() || file.length() == 0) return data;
+
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + filePath);
+            e.printStackTrace();
+            return data;
+        }
+        int magic = HEADER.length - 1;
+        if (bytes.length < HEADER.length || !Arrays.equals(bytes, 0, magic, HEADER, 0, magic)
+                || (bytes[magic] != HEADER[magic] && bytes[magic] != LEGACY_VERSION)) {
+            System.err.println("Not a binary repository file: " + filePath);
+            return data;
+        }
+        boolean legacy = bytes[magic] == LEGACY_VERSION;
+
+        ReferenceTable references = new ReferenceTable();
+        BinaryReader reader = new BinaryReader(bytes, HEADER.length, bytes.length - HEADER.length);
+        while (reader.hasRemaining()) {
+            int start = reader.position();
+            int length;
+            try {
+                length = reader.readVarInt();
+            } catch (RuntimeException e) {
+                System.err.println("Error reading record length at position " + start + " of file: " + filePath);
+                e.printStackTrace();
+                break;
+            }
+            if (length < 0 || length > bytes.length - reader.position()) {
+                System.err.println("Truncated record at position " + start + " of file: " + filePath);
+                break;
+            }
+            int next = reader.position() + length;
+            try {
+                BinaryReader record = new BinaryReader(bytes, reader.position(), length);
+                T obj = legacy ? codec.decode(record) : codec.decode(record, references);
+                attachFriendResolver(obj);
+                data.put(obj.getId(), obj);
+            } catch (RuntimeException e) {
+                System.err.println("Skipping undecodable record at position " + start + " of file: " + filePath);
+                e.printStackTrace();
+            }
+            reader.position(next);
+        }
+        references.resolve();
+        return data;
+    }
+
+    /**
+     * Writes the data to a temporary file and moves it over the data file, so a crash never
+     * leaves a partially written file behind.
+     *
+     * @param data The data to write to the file.
+     * @return true if the file was written.
+     */
+    @Override
+    protected boolean writeDataToFile(Map<Integer, T> data) {
+        Path tempPath = Paths.get(filePath + ".tmp");
+        ReferenceTable references = new ReferenceTable();
+        data.values().forEach(obj -> codec.index(obj, references));
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath), 1 << 16)) {
+            out.write(HEADER);
+            for (T obj : data.values()) {
+                writer.reset();
+                codec.encode(obj, writer, references);
+                lengthWriter.reset();
+                lengthWriter.writeVarInt(writer.size());
+                lengthWriter.writeTo(out);
+                writer.writeTo(out);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to file: " + tempPath);
+            e.printStackTrace();
+            return false;
+        }
+        try {
+            Files.move(tempPath, Paths.get(filePath), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing to file: " + filePath);
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
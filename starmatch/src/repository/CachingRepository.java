@@ -0,0 +1,359 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import model.HasId;
+
+/**
+ * A read-through cache in front of another repository.
+ * <p>
+ * Objects read by id are kept in a bounded map ordered by access, so the least recently used
+ * entry is evicted once the cache is full. Next to them, a {@link UniqueIndex} maps the unique keys of
+ * the cached objects to their entries, so {@link #findByUnique(String, Object)} is served from the cache
+ * too. The result of {@link #getAll()} is cached as a whole.
+ * Writes go straight to the underlying repository and then invalidate the cached entries they touch,
+ * so the next read loads the stored state again. Hits, misses and evictions are counted and exposed
+ * through getters.
+ * </p>
+ * <p>
+ * Changes made to the underlying storage without going through this cache are not seen until
+ * {@link #invalidateAll()} is called.
+ * </p>
+ *
+ * @param <T> The type of objects stored in the repository, which must implement HasId.
+ */
+public class CachingRepository<T extends HasId> implements Repository<T> {
+    private final Repository<T> delegate;
+    private final int capacity;
+    private final LinkedHashMap<Integer, T> entries;
+    private final UniqueIndex<T> keyIndex = new UniqueIndex<>();
+    private List<T> all;
+
+    /**
+     * Incremented by every write, so a load that raced with a write does not cache stale data.
+     */
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param delegate The repository holding the data.
+     * @param capacity The maximum number of objects cached by id.
+     */
+    public CachingRepository(Repository<T> delegate, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                if (size() > CachingRepository.this.capacity) {
+                    evictions.incrementAndGet();
+                    keyIndex.remove(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void create(T obj) {
+        delegate.create(obj);
+        invalidate(obj.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get(Integer id) {
+        long loadGeneration;
+        synchronized (this) {
+            T obj = entries.get(id);
+            if (obj != null) {
+                hits.incrementAndGet();
+                return obj;
+            }
+            loadGeneration = generation;
+        }
+        misses.incrementAndGet();
+        T obj = delegate.get(id);
+        if (obj != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    cache(obj);
+                }
+            }
+        }
+        return obj;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(T obj) {
+        delegate.update(obj);
+        invalidate(obj.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Integer id) {
+        delegate.delete(id);
+        invalidate(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void createAll(Collection<T> objs) {
+        delegate.createAll(objs);
+        invalidate(objs.stream().map(HasId::getId).toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateAll(Collection<T> objs) {
+        delegate.updateAll(objs);
+        invalidate(objs.stream().map(HasId::getId).toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        delegate.deleteAll(ids);
+        invalidate(ids);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commit(UnitOfWork<T> work) {
+        delegate.commit(work);
+        invalidate(work.getChanges().stream().map(UnitOfWork.Change::id).toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int reserveIds(int count) {
+        return delegate.reserveIds(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The list is loaded once and served from the cache until the next write. Every call returns
+     * a new mutable copy, so callers can sort or change it without touching the cached list.
+     * </p>
+     */
+    @Override
+    public List<T> getAll() {
+        long loadGeneration;
+        synchronized (this) {
+            if (all != null) {
+                hits.incrementAndGet();
+                return new ArrayList<>(all);
+            }
+            loadGeneration = generation;
+        }
+        misses.incrementAndGet();
+        List<T> loaded = List.copyOf(delegate.getAll());
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                all = loaded;
+            }
+        }
+        return new ArrayList<>(loaded);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Served from the cached list when it is loaded, otherwise streamed from the underlying repository.
+     * </p>
+     */
+    @Override
+    public Stream<T> stream() {
+        List<T> cached;
+        synchronized (this) {
+            cached = all;
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.stream();
+        }
+        misses.incrementAndGet();
+        return delegate.stream();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Served from the cache when an object with that key value is cached, otherwise looked up in the
+     * underlying repository; the object found is cached by id and by its unique keys.
+     * </p>
+     */
+    @Override
+    public T findByUnique(String field, Object value) {
+        long loadGeneration;
+        synchronized (this) {
+            T obj = keyIndex.get(field, value);
+            if (obj != null && entries.get(obj.getId()) == obj) {
+                hits.incrementAndGet();
+                return obj;
+            }
+            loadGeneration = generation;
+        }
+        misses.incrementAndGet();
+        T obj = delegate.findByUnique(field, value);
+        if (obj != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    cache(obj);
+                }
+            }
+        }
+        return obj;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The query goes to the underlying repository, which may answer it from an index.
+     * </p>
+     */
+    @Override
+    public List<T> findBy(String field, Object value) {
+        misses.incrementAndGet();
+        return delegate.findBy(field, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The query goes to the underlying repository, which may answer it from an index.
+     * </p>
+     */
+    @Override
+    public <V extends Comparable<? super V>> List<T> findInRange(String field, V from, V to) {
+        misses.incrementAndGet();
+        return delegate.findInRange(field, from, to);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The query goes to the underlying repository, which may answer it from an index.
+     * </p>
+     */
+    @Override
+    public List<T> getAllOrderedBy(String field) {
+        misses.incrementAndGet();
+        return delegate.getAllOrderedBy(field);
+    }
+
+    /**
+     * Drops every cached object, for example after the underlying storage was changed externally.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        keyIndex.clear();
+        all = null;
+    }
+
+    /**
+     * @return The number of reads answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of reads that had to go to the underlying repository.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of objects evicted to stay within the capacity.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return The share of reads answered from the cache, or 0 if there were no reads yet.
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return The number of objects currently cached by id.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Caches an object by id and by its unique keys. Cached objects that still hold one of its key
+     * values are dropped first, so the key index never refuses it.
+     */
+    private void cache(T obj) {
+        obj.getUniqueKeys().forEach((field, value) -> {
+            T holder = keyIndex.get(field, value);
+            if (holder != null && !holder.getId().equals(obj.getId())) {
+                drop(holder.getId());
+            }
+        });
+        entries.put(obj.getId(), obj);
+        keyIndex.add(obj);
+    }
+
+    private void drop(Integer id) {
+        if (id == null) return;
+        entries.remove(id);
+        keyIndex.remove(id);
+    }
+
+    private synchronized void invalidate(Integer id) {
+        generation++;
+        drop(id);
+        all = null;
+    }
+
+    private synchronized void invalidate(Collection<Integer> ids) {
+        generation++;
+        ids.forEach(this::drop);
+        all = null;
+    }
+}
@@ -0,0 +1,53 @@
+package repository;
+
+import java.util.List;
+
+import model.Compatibility;
+
+/**
+ * Stores the compatibility scores calculated between pairs of users, keyed by (user ID, friend ID).
+ * <p>
+ * Compatibilities have no single ID, so they are kept apart from the {@link Repository} hierarchy.
+ * </p>
+ */
+public interface CompatibilityRepository {
+
+    /**
+     * Retrieves the stored compatibility of a pair.
+     *
+     * @param userId   The ID of the user.
+     * @param friendId The ID of the friend.
+     * @return The stored compatibility, or null if none was stored.
+     */
+    Compatibility get(Integer userId, Integer friendId);
+
+    /**
+     * Stores a compatibility, replacing the one stored for the same pair.
+     *
+     * @param compatibility The compatibility to store.
+     */
+    void save(Compatibility compatibility);
+
+    /**
+     * Deletes the stored compatibility of a pair, if any.
+     *
+     * @param userId   The ID of the user.
+     * @param friendId The ID of the friend.
+     */
+    void delete(Integer userId, Integer friendId);
+
+    /**
+     * Retrieves every stored compatibility a user takes part in, on either side of the pair.
+     *
+     * @param userId The ID of the user.
+     * @return The compatibilities involving the user.
+     */
+    List<Compatibility> getForUser(Integer userId);
+
+    /**
+     * Deletes every stored compatibility a user takes part in, on either side of the pair.
+     *
+     * @param userId The ID of the user.
+     */
+    void deleteForUser(Integer userId);
+}
@@ -0,0 +1,125 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import model.HasId;
+
+/**
+ * A thread-safe repository implementation that stores data in memory.
+ * <p>
+ * Objects are kept in a {@link ConcurrentHashMap}, so reads never take a lock and writes only lock the
+ * hash bin of the id they touch. Writes of objects with unique keys, and deletes, additionally hold the lock
+ * of the unique index around the map write, so two ids can never claim the same key value at once; objects
+ * without unique keys keep the per-key path. One instance can be shared by concurrent sessions.
+ * {@link #getAll()} and {@link #stream()} are weakly
+ * consistent: they never throw {@link java.util.ConcurrentModificationException} and reflect the writes
+ * completed before they started.
+ * </p>
+ *
+ * @param <T> The type of objects stored in the repository, which must implement HasId.
+ */
+public class ConcurrentInMemoryRepository<T extends HasId> implements Repository<T> {
+    private final ConcurrentHashMap<Integer, T> data = new ConcurrentHashMap<>();
+    private final UniqueIndex<T> uniqueIndex = new UniqueIndex<>();
+    private final IdSequence idSequence = new IdSequence(0);
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException If a unique key value of the object is already taken by another object.
+     */
+    @Override
+    public void create(T obj) {
+        write(obj, () -> data.computeIfAbsent(obj.getId(), id -> {
+            uniqueIndex.add(obj);
+            idSequence.observe(id);
+            return obj;
+        }));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get(Integer id) {
+        return data.get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException If a unique key value of the object is already taken by another object.
+     */
+    @Override
+    public void update(T obj) {
+        write(obj, () -> data.computeIfPresent(obj.getId(), (id, old) -> {
+            uniqueIndex.add(obj);
+            return obj;
+        }));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Integer id) {
+        synchronized (uniqueIndex) {
+            data.computeIfPresent(id, (key, old) -> {
+                uniqueIndex.remove(key);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> getAll() {
+        return new ArrayList<>(data.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<T> stream() {
+        return data.values().stream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int reserveIds(int count) {
+        return idSequence.nextBlock(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T findByUnique(String field, Object value) {
+        return uniqueIndex.get(field, value);
+    }
+
+    /**
+     * Runs a map write, under the lock of the unique index if the object has unique keys. The uniqueness
+     * check and the index update of two different ids are then never interleaved.
+     *
+     * @param obj   The object being written.
+     * @param write The map write, which also maintains the index.
+     */
+    private void write(T obj, Runnable write) {
+        if (obj.getUniqueKeys().isEmpty()) {
+            write.run();
+            return;
+        }
+        synchronized (uniqueIndex) {
+            write.run();
+        }
+    }
+}
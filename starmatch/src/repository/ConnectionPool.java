@@ -0,0 +1,321 @@
+package repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small pool of JDBC connections to one database, made of a single writer connection
+ * and a fixed number of read-only connections.
+ * <p>
+ * This mirrors SQLite's write-ahead-log concurrency model: any number of readers can run
+ * alongside one writer, while writers are serialized. Writes therefore go through the writer,
+ * which is guarded by a reentrant lock, and reads borrow one of the reader connections.
+ * Every connection keeps its own prepared statement cache.
+ * </p>
+ * <p>
+ * A pool may be shared by several repositories working on the same database, so that they
+ * also share the single writer. For SQLite databases the pool runs the {@link SchemaMigrator}
+ * when it is created.
+ * </p>
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+    private final PooledConnection writer;
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private final List<PooledConnection> readers = new ArrayList<>();
+    private final BlockingQueue<PooledConnection> idleReaders;
+    private final ThreadLocal<PooledConnection> heldReader = new ThreadLocal<>();
+    private final boolean sqlite;
+
+    /**
+     * Creates a pool with one reader per available processor.
+     */
+    public ConnectionPool(String dbUrl, String dbUser, String dbPassword) {
+        this(dbUrl, dbUser, dbPassword, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a pool with the given number of read-only connections.
+     * <p>
+     * In-memory SQLite databases are private to the connection that opened them, so for those
+     * no readers are opened and reads go through the writer instead.
+     * </p>
+     *
+     * @param readerCount The number of read-only connections; 0 routes reads through the writer.
+     */
+    public ConnectionPool(String dbUrl, String dbUser, String dbPassword, int readerCount) {
+        if (readerCount < 0) {
+            throw new IllegalArgumentException("Reader count must not be negative: " + readerCount);
+        }
+        sqlite = dbUrl.startsWith("jdbc:sqlite:");
+        if (sqlite && (dbUrl.contains(":memory:") || dbUrl.contains("mode=memory"))) {
+            readerCount = 0;
+        }
+        idleReaders = new ArrayBlockingQueue<>(Math.max(readerCount, 1));
+        try {
+            writer = new PooledConnection(open(dbUrl, dbUser, dbPassword, false));
+            if (sqlite) {
+                configure(writer.connection, "PRAGMA journal_mode = WAL");
+            }
+            for (int i = 0; i < readerCount; i++) {
+                PooledConnection reader = new PooledConnection(open(dbUrl, dbUser, dbPassword, true));
+                readers.add(reader);
+                idleReaders.add(reader);
+            }
+            if (sqlite) {
+                configure(writer.connection, "PRAGMA foreign_keys = ON", "PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+                for (PooledConnection reader : readers) {
+                    configure(reader.connection, "PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+                }
+                migrate();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A pooled connection together with its prepared statement cache.
+     * It is used by one thread at a time, between acquiring and releasing it.
+     */
+    public static class PooledConnection {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statementCache = new HashMap<>();
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private int holds;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * Returns the prepared statement for the given SQL, preparing it on first use.
+         * Statements stay open until the pool is closed, so callers must not close them.
+         *
+         * @param sql The SQL of the statement.
+         * @return The cached prepared statement.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statementCache.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statementCache.put(sql, statement);
+            }
+            return statement;
+        }
+
+        /**
+         * Queues an action to run once the open transaction commits.
+         */
+        void addAfterCommit(Runnable action) {
+            afterCommit.add(action);
+        }
+
+        /**
+         * Runs and forgets the actions queued by the transaction that just committed.
+         */
+        void runAfterCommit() {
+            List<Runnable> actions = List.copyOf(afterCommit);
+            afterCommit.clear();
+            actions.forEach(Runnable::run);
+        }
+
+        /**
+         * Forgets the actions queued by a transaction that rolled back.
+         */
+        void discardAfterCommit() {
+            afterCommit.clear();
+        }
+
+        private void close() throws SQLException {
+            for (PreparedStatement statement : statementCache.values()) {
+                statement.close();
+            }
+            statementCache.clear();
+            connection.close();
+        }
+    }
+
+    /**
+     * @return Whether the pool is connected to a SQLite database.
+     */
+    public boolean isSqlite() {
+        return sqlite;
+    }
+
+    /**
+     * Acquires the writer connection, waiting while another thread holds it.
+     * The lock is reentrant, so a thread that already holds the writer gets it again.
+     * Every call must be paired with {@link #releaseWriter()}.
+     *
+     * @return The writer connection.
+     */
+    public PooledConnection acquireWriter() {
+        writerLock.lock();
+        return writer;
+    }
+
+    /**
+     * Releases the writer connection acquired by the current thread.
+     */
+    public void releaseWriter() {
+        writerLock.unlock();
+    }
+
+    /**
+     * @return Whether the current thread holds the writer connection.
+     */
+    public boolean holdsWriter() {
+        return writerLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Acquires a read-only connection, waiting until one is idle. A thread that already holds
+     * a reader gets the same one again, so nested reads never wait on each other. If the pool
+     * has no readers, or the current thread holds the writer, the writer is returned instead
+     * so that reads see the thread's own uncommitted writes.
+     * Every call must be paired with {@link #releaseReader(PooledConnection)}.
+     *
+     * @return A connection to read from.
+     */
+    public PooledConnection acquireReader() {
+        if (readers.isEmpty() || holdsWriter()) {
+            return acquireWriter();
+        }
+        PooledConnection reader = heldReader.get();
+        if (reader == null) {
+            try {
+                reader = idleReaders.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            heldReader.set(reader);
+        }
+        reader.holds++;
+        return reader;
+    }
+
+    /**
+     * Returns a connection acquired with {@link #acquireReader()} to the pool.
+     *
+     * @param reader The connection to release.
+     */
+    public void releaseReader(PooledConnection reader) {
+        if (reader == writer) {
+            releaseWriter();
+        } else if (--reader.holds == 0) {
+            heldReader.remove();
+            idleReaders.add(reader);
+        }
+    }
+
+    /**
+     * @return The connection the current thread works on: the writer if it holds it, otherwise
+     * the reader it holds, or null if it holds neither.
+     */
+    public PooledConnection current() {
+        return holdsWriter() ? writer : heldReader.get();
+    }
+
+    /**
+     * Brings the database schema up to date in one transaction on the writer.
+     */
+    private void migrate() throws SQLException {
+        Connection connection = writer.connection;
+        connection.setAutoCommit(false);
+        try {
+            SchemaMigrator.migrate(connection);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Opens one connection, read-only if requested.
+     */
+    private static Connection open(String dbUrl, String dbUser, String dbPassword, boolean readOnly) throws SQLException {
+        Properties properties = new Properties();
+        if (dbUser != null) properties.setProperty("user", dbUser);
+        if (dbPassword != null) properties.setProperty("password", dbPassword);
+        boolean sqlite = dbUrl.startsWith("jdbc:sqlite:");
+        if (readOnly && sqlite) {
+            // SQLITE_OPEN_READONLY; the SQLite driver only honours it when opening the file
+            properties.setProperty("open_mode", "1");
+        }
+        Connection connection = DriverManager.getConnection(dbUrl, properties);
+        if (readOnly && !sqlite) {
+            connection.setReadOnly(true);
+        }
+        return connection;
+    }
+
+    /**
+     * Runs the given configuration statements on a connection.
+     */
+    private static void configure(Connection connection, String... sqls) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Closes every connection of the pool. All connections are closed even if some fail to close;
+     * the first failure is thrown with the later ones suppressed.
+     */
+    @Override
+    public void close() throws SQLException {
+        writerLock.lock();
+        try {
+            SQLException failure = closeQuietly(writer, null);
+            for (PooledConnection reader : readers) {
+                failure = closeQuietly(reader, failure);
+            }
+            idleReaders.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Closes a connection, recording a failure instead of throwing it.
+     *
+     * @return The first failure so far, with this one added to it as suppressed.
+     */
+    private static SQLException closeQuietly(PooledConnection connection, SQLException failure) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            if (failure == null) return e;
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+}
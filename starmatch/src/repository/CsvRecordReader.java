@@ -0,0 +1,104 @@
+package repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the records of a CSV file. A record usually is one line, but a quoted field may contain
+ * line breaks, in which case the record spans several lines and is returned with its line breaks.
+ * A line separator ending a record is either {@code \n} or {@code \r\n}.
+ */
+class CsvRecordReader implements Closeable {
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder record = new StringBuilder();
+    private final CsvRecordScanner scanner = new CsvRecordScanner();
+    private int position;
+    private int limit;
+
+    /**
+     * @param reader The reader of the CSV text. It is closed together with this reader.
+     */
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The record without its line separator, or null at the end of the text.
+     */
+    String readRecord() throws IOException {
+        record.setLength(0);
+        scanner.reset();
+        boolean started = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return started ? finish() : null;
+                }
+            }
+            started = true;
+            int start = position;
+            while (position < limit) {
+                if (scanner.endsRecord(buffer[position++])) {
+                    record.append(buffer, start, position - 1 - start);
+                    return finish();
+                }
+            }
+            record.append(buffer, start, position - start);
+        }
+    }
+
+    /**
+     * @return The remaining records as a lazy stream. Closing the stream closes this reader.
+     */
+    Stream<String> records() {
+        Spliterator<String> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super String> action) {
+                try {
+                    String next = readRecord();
+                    if (next == null) return false;
+                    action.accept(next);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * @return The record read so far, without the carriage return of a {@code \r\n} separator.
+     */
+    private String finish() {
+        int length = record.length();
+        if (length > 0 && record.charAt(length - 1) == '\r' && !scanner.isInQuotes()) {
+            length--;
+        }
+        return record.substring(0, length);
+    }
+}
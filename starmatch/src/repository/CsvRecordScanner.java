@@ -0,0 +1,73 @@
+package repository;
+
+/**
+ * Tracks the quoting state of CSV text one character at a time, to tell the newlines that end
+ * a record from the ones inside a quoted field.
+ * <p>
+ * The rules are the ones {@link CsvTokenizer} reads fields with: a double quote at the start of
+ * a field opens a quoted section, two quotes inside it are a literal quote, and a single quote
+ * closes it. Only a newline outside a quoted section ends a record. All the characters involved
+ * are ASCII, so the scanner can be fed the bytes of UTF-8 text as well as its characters.
+ * </p>
+ */
+final class CsvRecordScanner {
+    private boolean inQuotes;
+    private boolean atFieldStart = true;
+    private boolean afterClosingQuote;
+
+    /**
+     * Feeds the next character of the text.
+     *
+     * @param c The character, or the unsigned value of the byte.
+     * @return true if the character is a newline that ends the current record.
+     */
+    boolean endsRecord(int c) {
+        if (inQuotes) {
+            if (c == '"') {
+                inQuotes = false;
+                afterClosingQuote = true;
+            }
+            return false;
+        }
+        if (c == '"' && (atFieldStart || afterClosingQuote)) {
+            // opens a quoted field, or continues one after a doubled quote
+            inQuotes = true;
+            atFieldStart = false;
+            afterClosingQuote = false;
+            return false;
+        }
+        afterClosingQuote = false;
+        if (c == '\n') {
+            atFieldStart = true;
+            return true;
+        }
+        atFieldStart = c == ',';
+        return false;
+    }
+
+    /**
+     * @return true if the text fed so far ends inside a quoted field.
+     */
+    boolean isInQuotes() {
+        return inQuotes;
+    }
+
+    /**
+     * Forgets the state, for scanning text that starts at the beginning of a record.
+     */
+    void reset() {
+        inQuotes = false;
+        atFieldStart = true;
+        afterClosingQuote = false;
+    }
+
+    /**
+     * Sets the state of text that starts inside a quoted field, which is the only other state
+     * the text right after a newline can be in.
+     */
+    void resetInsideQuotes() {
+        inQuotes = true;
+        atFieldStart = false;
+        afterClosingQuote = false;
+    }
+}
@@ -0,0 +1,83 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits CSV records into fields without regular expressions.
+ * <p>
+ * Fields are separated by commas. A field that starts with a double quote runs until the matching
+ * closing quote, may contain commas and line breaks, and writes a literal quote as two quotes ({@code ""}).
+ * Unquoted fields are taken as they are. As with {@code String.split(",")}, trailing empty fields
+ * are dropped, so lines written before quoting was introduced parse exactly as they used to.
+ * </p>
+ * <p>
+ * The tokenizer reuses its internal buffers from record to record, so one instance should be used
+ * by a single thread only.
+ * </p>
+ */
+public class CsvTokenizer {
+    private final StringBuilder quoted = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+
+    /**
+     * Splits one record into its fields.
+     *
+     * @param line The CSV record, without its trailing line separator.
+     * @return The fields of the record, with quoting removed.
+     */
+    public String[] tokenize(String line) {
+        fields.clear();
+        int length = line.length();
+        int position = 0;
+        int lastNonEmpty = -1;
+        while (true) {
+            String field;
+            if (position < length && line.charAt(position) == '"') {
+                position = readQuoted(line, position + 1);
+                field = quoted.toString();
+                lastNonEmpty = fields.size();
+            } else {
+                int end = line.indexOf(',', position);
+                if (end < 0) end = length;
+                field = line.substring(position, end);
+                position = end;
+                if (!field.isEmpty()) lastNonEmpty = fields.size();
+            }
+            fields.add(field);
+
+            // skip anything between a closing quote and the next separator
+            while (position < length && line.charAt(position) != ',') {
+                position++;
+            }
+            if (position >= length) break;
+            position++;
+        }
+        return fields.subList(0, lastNonEmpty + 1).toArray(new String[0]);
+    }
+
+    /**
+     * Reads a quoted field into the reusable buffer.
+     *
+     * @param line  The line being tokenized.
+     * @param start The position right after the opening quote.
+     * @return The position right after the closing quote, or the end of the line if it is missing.
+     */
+    private int readQuoted(String line, int start) {
+        quoted.setLength(0);
+        int position = start;
+        int length = line.length();
+        while (position < length) {
+            char c = line.charAt(position++);
+            if (c != '"') {
+                quoted.append(c);
+            } else if (position < length && line.charAt(position) == '"') {
+                quoted.append('"');
+                position++;
+            } else {
+                return position;
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,91 @@
+package repository.DBRepo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import model.Admin;
+import repository.ConnectionPool;
+import repository.DBRepository;
+
+/**
+ * A database repository for {@link Admin} entities, backed by the {@code Admin} table.
+ */
+public class AdminDBRepository extends DBRepository<Admin> {
+
+    private static final String INSERT_SQL = "INSERT OR IGNORE INTO Admin (id, name, email, password) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT id, name, email, password FROM Admin WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE Admin SET name = ?, email = ?, password = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM Admin WHERE id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT id, name, email, password FROM Admin";
+    private static final String SELECT_MAX_ID_SQL = "SELECT MAX(id) FROM Admin";
+
+    public AdminDBRepository(String dbUrl, String dbUser, String dbPassword) {
+        super(dbUrl, dbUser, dbPassword);
+    }
+
+    public AdminDBRepository(ConnectionPool pool) {
+        super(pool);
+    }
+
+    @Override
+    protected Map<String, String> getUniqueColumns() {
+        return Map.of("email", "email");
+    }
+
+    @Override
+    protected String getInsertSql() {
+        return INSERT_SQL;
+    }
+
+    @Override
+    protected String getSelectByIdSql() {
+        return SELECT_BY_ID_SQL;
+    }
+
+    @Override
+    protected String getUpdateSql() {
+        return UPDATE_SQL;
+    }
+
+    @Override
+    protected String getDeleteSql() {
+        return DELETE_SQL;
+    }
+
+    @Override
+    protected String getSelectAllSql() {
+        return SELECT_ALL_SQL;
+    }
+
+    @Override
+    protected String getSelectMaxIdSql() {
+        return SELECT_MAX_ID_SQL;
+    }
+
+    @Override
+    protected void bindInsert(PreparedStatement statement, Admin admin) throws SQLException {
+        statement.setInt(1, admin.getId());
+        statement.setString(2, admin.getName());
+        statement.setString(3, admin.getEmail());
+        statement.setString(4, admin.getPassword());
+    }
+
+    @Override
+    protected void bindUpdate(PreparedStatement statement, Admin admin) throws SQLException {
+        statement.setString(1, admin.getName());
+        statement.setString(2, admin.getEmail());
+        statement.setString(3, admin.getPassword());
+        statement.setInt(4, admin.getId());
+    }
+
+    @Override
+    protected Admin createObjectFromResultSet(ResultSet resultSet) throws SQLException {
+        return new Admin(
+                resultSet.getInt("id"),
+                resultSet.getString("name"),
+                resultSet.getString("email"),
+                resultSet.getString("password"));
+    }
+}
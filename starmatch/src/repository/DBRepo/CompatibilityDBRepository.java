@@ -0,0 +1,141 @@
+package repository.DBRepo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Compatibility;
+import repository.CompatibilityRepository;
+import repository.ConnectionPool;
+
+/**
+ * A database repository for {@link Compatibility} scores, backed by the {@code Compatibility} table.
+ * <p>
+ * Pair lookups use the table's (user_id, friend_id) primary key and the lookups of a user's pairs
+ * additionally use the index on friend_id, so neither scans the table.
+ * </p>
+ */
+public class CompatibilityDBRepository implements CompatibilityRepository, AutoCloseable {
+
+    private static final String SELECT_SQL = "SELECT user_id, friend_id, compatibility_score FROM Compatibility WHERE user_id = ? AND friend_id = ?";
+    private static final String UPSERT_SQL = "INSERT INTO Compatibility (user_id, friend_id, compatibility_score) VALUES (?, ?, ?) " +
+            "ON CONFLICT (user_id, friend_id) DO UPDATE SET compatibility_score = excluded.compatibility_score";
+    private static final String DELETE_SQL = "DELETE FROM Compatibility WHERE user_id = ? AND friend_id = ?";
+    private static final String SELECT_FOR_USER_SQL = "SELECT user_id, friend_id, compatibility_score FROM Compatibility WHERE user_id = ? " +
+            "UNION ALL SELECT user_id, friend_id, compatibility_score FROM Compatibility WHERE friend_id = ? AND user_id <> ?";
+    private static final String DELETE_FOR_USER_SQL = "DELETE FROM Compatibility WHERE user_id = ? OR friend_id = ?";
+
+    private final ConnectionPool pool;
+    private final boolean ownsPool;
+
+    public CompatibilityDBRepository(String dbUrl, String dbUser, String dbPassword) {
+        this.pool = new ConnectionPool(dbUrl, dbUser, dbPassword);
+        this.ownsPool = true;
+    }
+
+    public CompatibilityDBRepository(ConnectionPool pool) {
+        this.pool = pool;
+        this.ownsPool = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Compatibility get(Integer userId, Integer friendId) {
+        ConnectionPool.PooledConnection reader = pool.acquireReader();
+        try {
+            PreparedStatement statement = reader.prepare(SELECT_SQL);
+            statement.setInt(1, userId);
+            statement.setInt(2, friendId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? createObjectFromResultSet(resultSet) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.releaseReader(reader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(Compatibility compatibility) {
+        write(UPSERT_SQL, compatibility.getUserId(), compatibility.getFriendId(), compatibility.getCompatibilityScore());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Integer userId, Integer friendId) {
+        write(DELETE_SQL, userId, friendId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Compatibility> getForUser(Integer userId) {
+        ConnectionPool.PooledConnection reader = pool.acquireReader();
+        try {
+            PreparedStatement statement = reader.prepare(SELECT_FOR_USER_SQL);
+            statement.setInt(1, userId);
+            statement.setInt(2, userId);
+            statement.setInt(3, userId);
+            List<Compatibility> result = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(createObjectFromResultSet(resultSet));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.releaseReader(reader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteForUser(Integer userId) {
+        write(DELETE_FOR_USER_SQL, userId, userId);
+    }
+
+    /**
+     * Runs one write statement on the writer connection, in auto-commit mode or inside the
+     * transaction the current thread has open.
+     */
+    private void write(String sql, Object... params) {
+        ConnectionPool.PooledConnection writer = pool.acquireWriter();
+        try {
+            PreparedStatement statement = writer.prepare(sql);
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.releaseWriter();
+        }
+    }
+
+    private Compatibility createObjectFromResultSet(ResultSet resultSet) throws SQLException {
+        return new Compatibility(resultSet.getLong("compatibility_score"), resultSet.getInt("friend_id"), resultSet.getInt("user_id"));
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (ownsPool) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package repository.DBRepo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import model.Element;
+import model.Quote;
+import repository.ConnectionPool;
+import repository.DBRepository;
+
+/**
+ * A database repository for {@link Quote} entities, backed by the {@code Quote} table.
+ */
+public class QuoteDBRepository extends DBRepository<Quote> {
+
+    private static final String INSERT_SQL = "INSERT OR IGNORE INTO Quote (id, element, quote_text) VALUES (?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT id, element, quote_text FROM Quote WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE Quote SET element = ?, quote_text = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM Quote WHERE id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT id, element, quote_text FROM Quote";
+    private static final String SELECT_MAX_ID_SQL = "SELECT MAX(id) FROM Quote";
+
+    public QuoteDBRepository(String dbUrl, String dbUser, String dbPassword) {
+        super(dbUrl, dbUser, dbPassword);
+    }
+
+    public QuoteDBRepository(ConnectionPool pool) {
+        super(pool);
+    }
+
+    @Override
+    protected Map<String, String> getIndexedColumns() {
+        return Map.of("element", "element");
+    }
+
+    @Override
+    protected String getInsertSql() {
+        return INSERT_SQL;
+    }
+
+    @Override
+    protected String getSelectByIdSql() {
+        return SELECT_BY_ID_SQL;
+    }
+
+    @Override
+    protected String getUpdateSql() {
+        return UPDATE_SQL;
+    }
+
+    @Override
+    protected String getDeleteSql() {
+        return DELETE_SQL;
+    }
+
+    @Override
+    protected String getSelectAllSql() {
+        return SELECT_ALL_SQL;
+    }
+
+    @Override
+    protected String getSelectMaxIdSql() {
+        return SELECT_MAX_ID_SQL;
+    }
+
+    @Override
+    protected void bindInsert(PreparedStatement statement, Quote quote) throws SQLException {
+        statement.setInt(1, quote.getId());
+        statement.setString(2, quote.getElement().name());
+        statement.setString(3, quote.getQuoteText());
+    }
+
+    @Override
+    protected void bindUpdate(PreparedStatement statement, Quote quote) throws SQLException {
+        statement.setString(1, quote.getElement().name());
+        statement.setString(2, quote.getQuoteText());
+        statement.setInt(3, quote.getId());
+    }
+
+    @Override
+    protected Quote createObjectFromResultSet(ResultSet resultSet) throws SQLException {
+        return new Quote(
+                resultSet.getInt("id"),
+                Element.valueOf(resultSet.getString("element")),
+                resultSet.getString("quote_text"));
+    }
+}
@@ -0,0 +1,236 @@
+package repository.DBRepo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import model.Element;
+import model.StarSign;
+import model.Trait;
+import repository.ConnectionPool;
+import repository.DBRepository;
+
+/**
+ * A database repository for {@link StarSign} entities, backed by the {@code StarSign} table.
+ * The traits of a sign are linked through the {@code StarSign_Trait} table.
+ * <p>
+ * Signs are loaded together with their traits by a single join. Every trait is represented by one
+ * canonical instance per ID, shared by all the signs that link it. When the repository is built on a
+ * {@link TraitDBRepository}, the instances are the ones that repository returns, so an edit made to a
+ * trait through it is seen by every sign without reloading.
+ * </p>
+ */
+public class StarSignDBRepository extends DBRepository<StarSign> {
+
+    private static final String INSERT_SQL = "INSERT OR IGNORE INTO StarSign (id, star_name, element) VALUES (?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT id, star_name, element FROM StarSign WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE StarSign SET star_name = ?, element = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM StarSign WHERE id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT id, star_name, element FROM StarSign";
+    private static final String SELECT_MAX_ID_SQL = "SELECT MAX(id) FROM StarSign";
+
+    private static final String DELETE_TRAITS_SQL = "DELETE FROM StarSign_Trait WHERE star_sign_id = ?";
+    private static final String INSERT_TRAIT_SQL =
+            "INSERT OR IGNORE INTO StarSign_Trait (star_sign_id, trait_id) VALUES (?, ?)";
+    private static final String INSERT_TRAIT_BY_NAME_SQL =
+            "INSERT OR IGNORE INTO StarSign_Trait (star_sign_id, trait_id) SELECT ?, id FROM Trait WHERE trait_name = ? AND element = ?";
+    private static final String SELECT_WITH_TRAITS_SQL =
+            "SELECT s.id, s.star_name, s.element, t.id AS trait_id, t.element AS trait_element, t.trait_name FROM StarSign s " +
+            "LEFT JOIN StarSign_Trait st ON st.star_sign_id = s.id LEFT JOIN Trait t ON t.id = st.trait_id";
+    private static final String SELECT_BY_ID_WITH_TRAITS_SQL = SELECT_WITH_TRAITS_SQL + " WHERE s.id = ? ORDER BY t.id";
+    private static final String SELECT_ALL_WITH_TRAITS_SQL = SELECT_WITH_TRAITS_SQL + " ORDER BY s.id, t.id";
+
+    private final TraitIdentityMap traits;
+
+    public StarSignDBRepository(String dbUrl, String dbUser, String dbPassword) {
+        this(dbUrl, dbUser, dbPassword, null);
+    }
+
+    public StarSignDBRepository(ConnectionPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * @param traitRepository The repository whose trait instances the signs share, or null
+     *                        to keep the canonical instances in this repository only.
+     */
+    public StarSignDBRepository(String dbUrl, String dbUser, String dbPassword, TraitDBRepository traitRepository) {
+        super(dbUrl, dbUser, dbPassword);
+        this.traits = traitRepository != null ? traitRepository.getIdentityMap() : new TraitIdentityMap();
+    }
+
+    /**
+     * @param traitRepository The repository whose trait instances the signs share, or null
+     *                        to keep the canonical instances in this repository only.
+     */
+    public StarSignDBRepository(ConnectionPool pool, TraitDBRepository traitRepository) {
+        super(pool);
+        this.traits = traitRepository != null ? traitRepository.getIdentityMap() : new TraitIdentityMap();
+    }
+
+    @Override
+    protected String getInsertSql() {
+        return INSERT_SQL;
+    }
+
+    @Override
+    protected String getSelectByIdSql() {
+        return SELECT_BY_ID_SQL;
+    }
+
+    @Override
+    protected String getUpdateSql() {
+        return UPDATE_SQL;
+    }
+
+    @Override
+    protected String getDeleteSql() {
+        return DELETE_SQL;
+    }
+
+    @Override
+    protected String getSelectAllSql() {
+        return SELECT_ALL_SQL;
+    }
+
+    @Override
+    protected String getSelectMaxIdSql() {
+        return SELECT_MAX_ID_SQL;
+    }
+
+    @Override
+    protected void bindInsert(PreparedStatement statement, StarSign sign) throws SQLException {
+        statement.setInt(1, sign.getId());
+        statement.setString(2, sign.getStarName());
+        statement.setString(3, sign.getElement().name());
+    }
+
+    @Override
+    protected void bindUpdate(PreparedStatement statement, StarSign sign) throws SQLException {
+        statement.setString(1, sign.getStarName());
+        statement.setString(2, sign.getElement().name());
+        statement.setInt(3, sign.getId());
+    }
+
+    @Override
+    protected StarSign createObjectFromResultSet(ResultSet resultSet) throws SQLException {
+        return new StarSign(
+                resultSet.getString("star_name"),
+                Element.valueOf(resultSet.getString("element")),
+                new ArrayList<>(),
+                resultSet.getInt("id"));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The sign and its traits are read with one join.
+     * </p>
+     */
+    @Override
+    public StarSign get(Integer id) {
+        return read(() -> {
+            PreparedStatement statement = prepare(SELECT_BY_ID_WITH_TRAITS_SQL);
+            statement.setInt(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<StarSign> signs = readSigns(resultSet);
+                return signs.isEmpty() ? null : signs.getFirst();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All signs and their traits are read with one join.
+     * </p>
+     */
+    @Override
+    public List<StarSign> getAll() {
+        return read(() -> {
+            try (ResultSet resultSet = prepare(SELECT_ALL_WITH_TRAITS_SQL).executeQuery()) {
+                return readSigns(resultSet);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * There are only a handful of signs, so they are loaded with the single join of
+     * {@link #getAll()} rather than streamed with one trait query per row.
+     * </p>
+     */
+    @Override
+    public Stream<StarSign> stream() {
+        return getAll().stream();
+    }
+
+    /**
+     * Replaces the trait links of the sign. Traits with an ID are linked by it, the others are
+     * matched by name and element.
+     */
+    @Override
+    protected void writeRelations(StarSign sign) throws SQLException {
+        PreparedStatement deleteTraits = prepare(DELETE_TRAITS_SQL);
+        deleteTraits.setInt(1, sign.getId());
+        deleteTraits.executeUpdate();
+        List<Trait> byId = sign.getTraits().stream().filter(trait -> trait.getId() != null).toList();
+        List<Trait> byName = sign.getTraits().stream().filter(trait -> trait.getId() == null).toList();
+        executeBatch(INSERT_TRAIT_SQL, byId, (statement, trait) -> {
+            statement.setInt(1, sign.getId());
+            statement.setInt(2, trait.getId());
+        });
+        executeBatch(INSERT_TRAIT_BY_NAME_SQL, byName, (statement, trait) -> {
+            statement.setInt(1, sign.getId());
+            statement.setString(2, trait.getTraitName());
+            statement.setString(3, trait.getElement().name());
+        });
+    }
+
+    /**
+     * Removes the trait links of the sign, which do not cascade.
+     */
+    @Override
+    protected void deleteRelations(Integer id) throws SQLException {
+        PreparedStatement deleteTraits = prepare(DELETE_TRAITS_SQL);
+        deleteTraits.setInt(1, id);
+        deleteTraits.executeUpdate();
+    }
+
+    /**
+     * Groups the rows of a sign-trait join by sign. Signs without traits come with one row
+     * whose trait columns are null.
+     */
+    private List<StarSign> readSigns(ResultSet resultSet) throws SQLException {
+        Map<Integer, StarSign> signs = new LinkedHashMap<>();
+        while (resultSet.next()) {
+            int id = resultSet.getInt("id");
+            StarSign sign = signs.get(id);
+            if (sign == null) {
+                sign = createObjectFromResultSet(resultSet);
+                signs.put(id, sign);
+            }
+            resultSet.getInt("trait_id");
+            if (!resultSet.wasNull()) {
+                sign.getTraits().add(canonicalTrait(resultSet));
+            }
+        }
+        return new ArrayList<>(signs.values());
+    }
+
+    /**
+     * Returns the shared instance of the trait in the current row, brought up to date with the row.
+     */
+    private Trait canonicalTrait(ResultSet resultSet) throws SQLException {
+        return traits.canonical(
+                resultSet.getInt("trait_id"),
+                Element.valueOf(resultSet.getString("trait_element")),
+                resultSet.getString("trait_name"));
+    }
+}
@@ -0,0 +1,160 @@
+package repository.DBRepo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import model.Element;
+import model.Trait;
+import repository.ConnectionPool;
+import repository.DBRepository;
+
+/**
+ * A database repository for {@link Trait} entities, backed by the {@code Trait} table.
+ * <p>
+ * Reads return one shared instance per trait ID, refreshed from the row it was read from. The same
+ * instances are linked by a {@link StarSignDBRepository} built on this repository, so an edit made to
+ * a trait, and stored with {@link #update(Trait)}, is seen by every star sign without reloading it.
+ * Deleting a trait drops its instance. The instances are changed only once the write has committed,
+ * so a write that rolls back, alone or as part of a {@link #commit}, leaves them as they were.
+ * </p>
+ */
+public class TraitDBRepository extends DBRepository<Trait> {
+
+    private static final String INSERT_SQL = "INSERT OR IGNORE INTO Trait (id, element, trait_name) VALUES (?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL = "SELECT id, element, trait_name FROM Trait WHERE id = ?";
+    private static final String UPDATE_SQL = "UPDATE Trait SET element = ?, trait_name = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM Trait WHERE id = ?";
+    private static final String SELECT_ALL_SQL = "SELECT id, element, trait_name FROM Trait";
+    private static final String SELECT_MAX_ID_SQL = "SELECT MAX(id) FROM Trait";
+    private static final String DELETE_SIGN_LINKS_SQL = "DELETE FROM StarSign_Trait WHERE trait_id = ?";
+
+    private final TraitIdentityMap identityMap = new TraitIdentityMap();
+
+    public TraitDBRepository(String dbUrl, String dbUser, String dbPassword) {
+        super(dbUrl, dbUser, dbPassword);
+    }
+
+    public TraitDBRepository(ConnectionPool pool) {
+        super(pool);
+    }
+
+    @Override
+    protected Map<String, String> getIndexedColumns() {
+        return Map.of("element", "element");
+    }
+
+    @Override
+    protected String getInsertSql() {
+        return INSERT_SQL;
+    }
+
+    @Override
+    protected String getSelectByIdSql() {
+        return SELECT_BY_ID_SQL;
+    }
+
+    @Override
+    protected String getUpdateSql() {
+        return UPDATE_SQL;
+    }
+
+    @Override
+    protected String getDeleteSql() {
+        return DELETE_SQL;
+    }
+
+    @Override
+    protected String getSelectAllSql() {
+        return SELECT_ALL_SQL;
+    }
+
+    @Override
+    protected String getSelectMaxIdSql() {
+        return SELECT_MAX_ID_SQL;
+    }
+
+    @Override
+    protected void bindInsert(PreparedStatement statement, Trait trait) throws SQLException {
+        statement.setInt(1, trait.getId());
+        statement.setString(2, trait.getElement().name());
+        statement.setString(3, trait.getTraitName());
+    }
+
+    @Override
+    protected void bindUpdate(PreparedStatement statement, Trait trait) throws SQLException {
+        statement.setString(1, trait.getElement().name());
+        statement.setString(2, trait.getTraitName());
+        statement.setInt(3, trait.getId());
+    }
+
+    @Override
+    protected Trait createObjectFromResultSet(ResultSet resultSet) throws SQLException {
+        return identityMap.canonical(
+                resultSet.getInt("id"),
+                Element.valueOf(resultSet.getString("element")),
+                resultSet.getString("trait_name"));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The shared instance of the trait takes the stored element and name.
+     * </p>
+     */
+    @Override
+    public void update(Trait trait) {
+        super.update(trait);
+        afterCommit(() -> identityMap.refresh(trait));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateAll(Collection<Trait> traits) {
+        super.updateAll(traits);
+        List<Trait> stored = new ArrayList<>(traits);
+        afterCommit(() -> stored.forEach(identityMap::refresh));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Integer id) {
+        super.delete(id);
+        afterCommit(() -> identityMap.evict(id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        super.deleteAll(ids);
+        List<Integer> deleted = new ArrayList<>(ids);
+        afterCommit(() -> deleted.forEach(identityMap::evict));
+    }
+
+    /**
+     * @return The map of shared trait instances, for the star-sign repository to link.
+     */
+    TraitIdentityMap getIdentityMap() {
+        return identityMap;
+    }
+
+    /**
+     * Removes the links from star signs to the trait, which do not cascade.
+     */
+    @Override
+    protected void deleteRelations(Integer id) throws SQLException {
+        PreparedStatement statement = prepare(DELETE_SIGN_LINKS_SQL);
+        statement.setInt(1, id);
+        statement.executeUpdate();
+    }
+}
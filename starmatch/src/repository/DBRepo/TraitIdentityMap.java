@@ -0,0 +1,62 @@
+package repository.DBRepo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.Element;
+import model.Trait;
+
+/**
+ * Keeps one {@link Trait} instance per trait ID, so every reader of a trait gets the same object
+ * and an edit made to it is seen everywhere. An instance is brought up to date with every row it
+ * is read from.
+ */
+class TraitIdentityMap {
+    private final Map<Integer, Trait> traits = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared instance of a trait, creating it the first time the ID is seen.
+     *
+     * @param id        The ID of the trait.
+     * @param element   The element of the trait, as stored.
+     * @param traitName The name of the trait, as stored.
+     * @return The shared instance, carrying the given element and name.
+     */
+    Trait canonical(int id, Element element, String traitName) {
+        Trait trait = traits.get(id);
+        if (trait == null) {
+            Trait created = new Trait(element, traitName, id);
+            trait = traits.putIfAbsent(id, created);
+            if (trait == null) {
+                return created;
+            }
+        }
+        if (trait.getElement() != element) trait.setElement(element);
+        if (!traitName.equals(trait.getTraitName())) trait.setTraitName(traitName);
+        return trait;
+    }
+
+    /**
+     * Copies the element and name of a stored trait into its shared instance, if there is one.
+     *
+     * @param stored The trait as it was written to the database.
+     */
+    void refresh(Trait stored) {
+        Trait trait = stored.getId() != null ? traits.get(stored.getId()) : null;
+        if (trait != null && trait != stored) {
+            trait.setElement(stored.getElement());
+            trait.setTraitName(stored.getTraitName());
+        }
+    }
+
+    /**
+     * Forgets the instance of a deleted trait.
+     *
+     * @param id The ID of the trait.
+     */
+    void evict(Integer id) {
+        if (id != null) {
+            traits.remove(id);
+        }
+    }
+}
@@ -1,4 +1,308 @@
 package repository.DBRepo;
 
-public class UserDBRepository {
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import model.User;
+import repository.ConnectionPool;
+import repository.DBRepository;
+
+/**
+ * A database repository for {@link User} entities, backed by the {@code User} table.
+ * Friends are stored as edges in the {@code User_Friends} table.
+ * Creating a user whose ID or email is already taken fails with the constraint violation
+ * reported by the database, wrapped in a RuntimeException.
+ */
+public class UserDBRepository extends DBRepository<User> {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO User (id, name, birth_date, birth_time, birth_place, email, password) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ID_SQL =
+            "SELECT id, name, birth_date, birth_time, birth_place, email, password FROM User WHERE id = ?";
+    private static final String UPDATE_SQL =
+            "UPDATE User SET name = ?, birth_date = ?, birth_time = ?, birth_place = ?, email = ?, password = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM User WHERE id = ?";
+    private static final String SELECT_ALL_SQL =
+            "SELECT id, name, birth_date, birth_time, birth_place, email, password FROM User";
+    private static final String SELECT_MAX_ID_SQL = "SELECT MAX(id) FROM User";
+
+    private static final String DELETE_FRIENDS_SQL = "DELETE FROM User_Friends WHERE user_id = ?";
+    private static final String DELETE_FRIEND_SQL =
+            "DELETE FROM User_Friends WHERE user_id = ? AND friend_id IN (SELECT id FROM User WHERE email = ?)";
+    private static final String INSERT_FRIEND_SQL =
+            "INSERT OR IGNORE INTO User_Friends (user_id, friend_id) SELECT ?, id FROM User WHERE email = ?";
+    private static final String SELECT_FRIEND_EMAILS_SQL =
+            "SELECT f.email FROM User_Friends uf JOIN User f ON f.id = uf.friend_id WHERE uf.user_id = ?";
+    private static final String SELECT_ALL_FRIEND_EMAILS_SQL =
+            "SELECT uf.user_id, f.email FROM User_Friends uf JOIN User f ON f.id = uf.friend_id";
+    /**
+     * The friends of one user, each with the emails of its own friends, in a single round trip.
+     */
+    private static final String SELECT_FRIENDS_SQL =
+            "SELECT f.id, f.name, f.birth_date, f.birth_time, f.birth_place, f.email, f.password, ff.email AS friend_email " +
+            "FROM User_Friends uf JOIN User f ON f.id = uf.friend_id " +
+            "LEFT JOIN User_Friends fuf ON fuf.user_id = f.id LEFT JOIN User ff ON ff.id = fuf.friend_id " +
+            "WHERE uf.user_id = ? ORDER BY f.id";
+
+    /**
+     * One row of the {@code User_Friends} table, with the friend identified by email.
+     */
+    private record FriendEdge(int userId, String friendEmail) {
+    }
+
+    public UserDBRepository(String dbUrl, String dbUser, String dbPassword) {
+        super(dbUrl, dbUser, dbPassword);
+    }
+
+    public UserDBRepository(ConnectionPool pool) {
+        super(pool);
+    }
+
+    @Override
+    protected Map<String, String> getUniqueColumns() {
+        return Map.of("email", "email");
+    }
+
+    @Override
+    protected Map<String, String> getIndexedColumns() {
+        return Map.of("birthPlace", "birth_place", "birthDate", "birth_date");
+    }
+
+    @Override
+    protected String getInsertSql() {
+        return INSERT_SQL;
+    }
+
+    @Override
+    protected String getSelectByIdSql() {
+        return SELECT_BY_ID_SQL;
+    }
+
+    @Override
+    protected String getUpdateSql() {
+        return UPDATE_SQL;
+    }
+
+    @Override
+    protected String getDeleteSql() {
+        return DELETE_SQL;
+    }
+
+    @Override
+    protected String getSelectAllSql() {
+        return SELECT_ALL_SQL;
+    }
+
+    @Override
+    protected String getSelectMaxIdSql() {
+        return SELECT_MAX_ID_SQL;
+    }
+
+    @Override
+    protected void bindInsert(PreparedStatement statement, User user) throws SQLException {
+        statement.setInt(1, user.getId());
+        statement.setString(2, user.getName());
+        setNullableString(statement, 3, user.getBirthDate());
+        setNullableString(statement, 4, user.getBirthTime());
+        statement.setString(5, user.getBirthPlace());
+        statement.setString(6, user.getEmail());
+        statement.setString(7, user.getPassword());
+    }
+
+    @Override
+    protected void bindUpdate(PreparedStatement statement, User user) throws SQLException {
+        statement.setString(1, user.getName());
+        setNullableString(statement, 2, user.getBirthDate());
+        setNullableString(statement, 3, user.getBirthTime());
+        statement.setString(4, user.getBirthPlace());
+        statement.setString(5, user.getEmail());
+        statement.setString(6, user.getPassword());
+        statement.setInt(7, user.getId());
+    }
+
+    /**
+     * Binds the text form of a value, or SQL NULL if the value is null.
+     */
+    private static void setNullableString(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.VARCHAR);
+        } else {
+            statement.setString(index, value.toString());
+        }
+    }
+
+    @Override
+    protected User createObjectFromResultSet(ResultSet resultSet) throws SQLException {
+        String birthDate = resultSet.getString("birth_date");
+        String birthTime = resultSet.getString("birth_time");
+        return new User(
+                resultSet.getInt("id"),
+                resultSet.getString("name"),
+                birthDate == null ? null : LocalDate.parse(birthDate),
+                birthTime == null ? null : LocalTime.parse(birthTime),
+                resultSet.getString("birth_place"),
+                resultSet.getString("email"),
+                resultSet.getString("password"));
+    }
+
+    /**
+     * Brings the friend edges of the user in line with its raw friend email list, deleting the
+     * edges that were removed and inserting the ones that were added, each as one batch.
+     * Emails that do not belong to a stored user are skipped.
+     */
+    @Override
+    protected void writeRelations(User user) throws SQLException {
+        Set<String> stored = new HashSet<>(readFriendEmails(user.getId()));
+        Set<String> wanted = new LinkedHashSet<>(user.getRawFriendEmails());
+        List<String> removed = stored.stream().filter(email -> !wanted.contains(email)).toList();
+        List<String> added = wanted.stream().filter(email -> !stored.contains(email)).toList();
+        executeBatch(DELETE_FRIEND_SQL, removed, (statement, email) -> {
+            statement.setInt(1, user.getId());
+            statement.setString(2, email);
+        });
+        executeBatch(INSERT_FRIEND_SQL, added, (statement, email) -> {
+            statement.setInt(1, user.getId());
+            statement.setString(2, email);
+        });
+    }
+
+    /**
+     * Replaces the friend edges of all given users with one batch of deletes and one batch of inserts.
+     */
+    @Override
+    protected void writeAllRelations(List<User> users) throws SQLException {
+        if (users.size() == 1) {
+            writeRelations(users.getFirst());
+            return;
+        }
+        List<FriendEdge> edges = new ArrayList<>();
+        for (User user : users) {
+            for (String email : user.getRawFriendEmails()) {
+                edges.add(new FriendEdge(user.getId(), email));
+            }
+        }
+        executeBatch(DELETE_FRIENDS_SQL, users, (statement, user) -> statement.setInt(1, user.getId()));
+        executeBatch(INSERT_FRIEND_SQL, edges, (statement, edge) -> {
+            statement.setInt(1, edge.userId());
+            statement.setString(2, edge.friendEmail());
+        });
+    }
+
+    /**
+     * Loads the emails of the user's friends from the {@code User_Friends} table. The friends
+     * themselves are loaded together, in one query, the first time they are accessed.
+     */
+    @Override
+    protected void readRelations(User user) throws SQLException {
+        user.setRawFriendEmails(readFriendEmails(user.getId()));
+        user.setFriendResolver(new FriendLoader(user.getId()));
+    }
+
+    /**
+     * Loads every friend edge with one query and stitches the edges to the loaded users in memory.
+     * Friends are resolved among the loaded users, without further queries.
+     */
+    @Override
+    protected void readAllRelations(List<User> users) throws SQLException {
+        if (users.isEmpty()) return;
+        Map<Integer, List<String>> friendEmails = new HashMap<>();
+        try (ResultSet resultSet = prepare(SELECT_ALL_FRIEND_EMAILS_SQL).executeQuery()) {
+            while (resultSet.next()) {
+                friendEmails.computeIfAbsent(resultSet.getInt(1), id -> new ArrayList<>()).add(resultSet.getString(2));
+            }
+        }
+        Map<String, User> usersByEmail = new HashMap<>();
+        for (User user : users) {
+            usersByEmail.put(user.getEmail(), user);
+        }
+        Function<String, User> resolver = email -> {
+            User friend = usersByEmail.get(email);
+            return friend != null ? friend : findByUnique("email", email);
+        };
+        for (User user : users) {
+            user.setRawFriendEmails(friendEmails.getOrDefault(user.getId(), List.of()));
+            user.setFriendResolver(resolver);
+        }
+    }
+
+    private List<String> readFriendEmails(int userId) throws SQLException {
+        PreparedStatement statement = prepare(SELECT_FRIEND_EMAILS_SQL);
+        statement.setInt(1, userId);
+        List<String> friendEmails = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                friendEmails.add(resultSet.getString(1));
+            }
+        }
+        return friendEmails;
+    }
+
+    /**
+     * Resolves the friends of one user. On first use it loads all of them, together with the
+     * emails of their own friends, in a single query, and answers later lookups from memory.
+     * A friend added to the user after that load is looked up by email and remembered.
+     */
+    private class FriendLoader implements Function<String, User> {
+        private final int userId;
+        private Map<String, User> friendsByEmail;
+
+        FriendLoader(int userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public User apply(String email) {
+            if (friendsByEmail == null) {
+                friendsByEmail = read(this::loadFriends);
+            }
+            User friend = friendsByEmail.get(email);
+            if (friend == null) {
+                friend = findByUnique("email", email);
+                if (friend != null) {
+                    friendsByEmail.put(email, friend);
+                }
+            }
+            return friend;
+        }
+
+        private Map<String, User> loadFriends() throws SQLException {
+            PreparedStatement statement = prepare(SELECT_FRIENDS_SQL);
+            statement.setInt(1, userId);
+            Map<Integer, User> friends = new LinkedHashMap<>();
+            Map<Integer, List<String>> friendEmails = new HashMap<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int id = resultSet.getInt("id");
+                    if (!friends.containsKey(id)) {
+                        friends.put(id, createObjectFromResultSet(resultSet));
+                        friendEmails.put(id, new ArrayList<>());
+                    }
+                    String friendEmail = resultSet.getString("friend_email");
+                    if (friendEmail != null) {
+                        friendEmails.get(id).add(friendEmail);
+                    }
+                }
+            }
+            Map<String, User> result = new HashMap<>();
+            for (User friend : friends.values()) {
+                friend.setRawFriendEmails(friendEmails.get(friend.getId()));
+                friend.setFriendResolver(new FriendLoader(friend.getId()));
+                result.put(friend.getEmail(), friend);
+            }
+            return result;
+        }
+    }
 }
@@ -1,25 +1,782 @@
 package repository;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import model.HasId;
 
+/**
+ * A repository implementation that stores data in a relational database through JDBC.
+ * <p>
+ * Subclasses describe the table they map to by providing the SQL for each CRUD operation
+ * together with the code that binds an entity to a statement and reads it back from a row.
+ * Prepared statements are cached per connection and reused for the lifetime of the repository,
+ * and multi-row writes are sent as JDBC batches inside a single transaction.
+ * </p>
+ * <p>
+ * Connections come from a {@link ConnectionPool}: reads run on one of its read-only connections
+ * and writes run on its single writer connection, so reads from several threads proceed in
+ * parallel while writes stay serialized.
+ * </p>
+ *
+ * @param <T> The type of objects stored in the repository, which must implement HasId.
+ */
 public abstract class DBRepository<T extends HasId> implements Repository<T>, AutoCloseable {
 
-    protected final Connection connection;
+    private static final int STREAM_FETCH_SIZE = 256;
+    private static final int ID_CHUNK_SIZE = 100;
+    private static final String ID_PLACEHOLDERS = String.join(", ", Collections.nCopies(ID_CHUNK_SIZE, "?"));
 
+    protected final ConnectionPool pool;
+    private final boolean ownsPool;
+    private final AtomicReference<IdSequence> idSequence = new AtomicReference<>();
+
+    /**
+     * Creates a repository with its own connection pool, with one reader per available processor.
+     */
     public DBRepository(String dbUrl, String dbUser, String dbPassword) {
+        this(new ConnectionPool(dbUrl, dbUser, dbPassword), true);
+    }
+
+    /**
+     * Creates a repository with its own connection pool.
+     *
+     * @param readerCount The number of read-only connections in the pool.
+     */
+    public DBRepository(String dbUrl, String dbUser, String dbPassword, int readerCount) {
+        this(new ConnectionPool(dbUrl, dbUser, dbPassword, readerCount), true);
+    }
+
+    /**
+     * Creates a repository working on a shared connection pool, which the caller closes.
+     *
+     * @param pool The pool to take connections from.
+     */
+    public DBRepository(ConnectionPool pool) {
+        this(pool, false);
+    }
+
+    private DBRepository(ConnectionPool pool, boolean ownsPool) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * Binds the values of an item to the parameters of a prepared statement.
+     *
+     * @param <E> The type of the bound item.
+     */
+    @FunctionalInterface
+    protected interface StatementBinder<E> {
+        void bind(PreparedStatement statement, E item) throws SQLException;
+    }
+
+    /**
+     * A unit of database work that runs inside a transaction.
+     */
+    @FunctionalInterface
+    protected interface SqlWork {
+        void execute() throws SQLException;
+    }
+
+    /**
+     * A unit of database work that reads and returns a result.
+     *
+     * @param <R> The type of the result.
+     */
+    @FunctionalInterface
+    protected interface SqlQuery<R> {
+        R execute() throws SQLException;
+    }
+
+    /**
+     * @return The SQL inserting one row, ignoring it if the id already exists.
+     */
+    protected abstract String getInsertSql();
+
+    /**
+     * @return The SQL selecting one row by its id.
+     */
+    protected abstract String getSelectByIdSql();
+
+    /**
+     * @return The SQL updating one row, with the id bound as the last parameter.
+     */
+    protected abstract String getUpdateSql();
+
+    /**
+     * @return The SQL deleting one row by its id.
+     */
+    protected abstract String getDeleteSql();
+
+    /**
+     * @return The SQL selecting all rows.
+     */
+    protected abstract String getSelectAllSql();
+
+    /**
+     * @return The SQL selecting the highest id in the table, answered from the primary key index.
+     */
+    protected abstract String getSelectMaxIdSql();
+
+    /**
+     * Maps the names of the entity's unique keys (see {@link HasId#getUniqueKeys()}) to the
+     * columns holding them. The columns are expected to carry a {@code UNIQUE} constraint,
+     * so lookups by them use the constraint's index.
+     *
+     * @return A map from unique key name to column name; empty by default.
+     */
+    protected Map<String, String> getUniqueColumns() {
+        return Map.of();
+    }
+
+    /**
+     * Maps the names of the entity's searchable fields (see {@link HasId#getIndexedFields()}) to the
+     * columns holding them. The columns are expected to be indexed, so queries on them use the index.
+     *
+     * @return A map from field name to column name; empty by default.
+     */
+    protected Map<String, String> getIndexedColumns() {
+        return Map.of();
+    }
+
+    /**
+     * Binds an entity to the parameters of the insert statement.
+     */
+    protected abstract void bindInsert(PreparedStatement statement, T obj) throws SQLException;
+
+    /**
+     * Binds an entity to the parameters of the update statement.
+     */
+    protected abstract void bindUpdate(PreparedStatement statement, T obj) throws SQLException;
+
+    /**
+     * Creates an entity from the current row of a result set.
+     */
+    protected abstract T createObjectFromResultSet(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Hook for writing the rows that belong to an entity but live in other tables
+     * (for example link tables). It runs inside the same transaction as the main write.
+     *
+     * @param obj The entity that was inserted or updated.
+     */
+    protected void writeRelations(T obj) throws SQLException {
+    }
+
+    /**
+     * Hook for removing the rows in other tables that reference an entity and are not
+     * removed by a cascading foreign key. It runs before the entity's own row is deleted.
+     *
+     * @param id The id of the entity being deleted.
+     */
+    protected void deleteRelations(Integer id) throws SQLException {
+    }
+
+    /**
+     * Hook for loading the rows that belong to an entity but live in other tables.
+     *
+     * @param obj The entity that was just read from its own table.
+     */
+    protected void readRelations(T obj) throws SQLException {
+    }
+
+    /**
+     * Hook for writing the relations of several entities at once, used by the bulk writes.
+     * The default implementation calls {@link #writeRelations(Object)} for each entity;
+     * subclasses override it to write all relations with set-based statements.
+     *
+     * @param objs The entities that were inserted or updated.
+     */
+    protected void writeAllRelations(List<T> objs) throws SQLException {
+        for (T obj : objs) {
+            writeRelations(obj);
+        }
+    }
+
+    /**
+     * Hook for loading the relations of several entities at once, used by {@link #getAll()}.
+     * The default implementation calls {@link #readRelations(Object)} for each entity;
+     * subclasses override it to load all relations with set-based queries.
+     *
+     * @param objs The entities that were just read from their own table.
+     */
+    protected void readAllRelations(List<T> objs) throws SQLException {
+        for (T obj : objs) {
+            readRelations(obj);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void create(T obj) {
+        inTransaction(() -> {
+            PreparedStatement statement = prepare(getInsertSql());
+            bindInsert(statement, obj);
+            if (statement.executeUpdate() > 0) {
+                observeId(obj);
+                writeRelations(obj);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get(Integer id) {
+        return read(() -> {
+            PreparedStatement statement = prepare(getSelectByIdSql());
+            statement.setInt(1, id);
+            T obj = null;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    obj = createObjectFromResultSet(resultSet);
+                }
+            }
+            if (obj != null) {
+                readRelations(obj);
+            }
+            return obj;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The IDs are looked up with one {@code IN} query per chunk of {@value #ID_CHUNK_SIZE} IDs. A shorter
+     * last chunk repeats its last ID, so every lookup reuses the same prepared statement.
+     * </p>
+     */
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        List<Integer> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.isEmpty()) return new HashSet<>();
+        return read(() -> {
+            Set<Integer> existing = new HashSet<>();
+            for (int from = 0; from < distinct.size(); from += ID_CHUNK_SIZE) {
+                List<Integer> chunk = distinct.subList(from, Math.min(from + ID_CHUNK_SIZE, distinct.size()));
+                PreparedStatement statement = prepare(getSelectAllSql() + " WHERE id IN (" + ID_PLACEHOLDERS + ")");
+                for (int i = 0; i < ID_CHUNK_SIZE; i++) {
+                    statement.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        existing.add(resultSet.getInt("id"));
+                    }
+                }
+            }
+            return existing;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(T obj) {
+        inTransaction(() -> {
+            PreparedStatement statement = prepare(getUpdateSql());
+            bindUpdate(statement, obj);
+            if (statement.executeUpdate() > 0) {
+                writeRelations(obj);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Integer id) {
+        inTransaction(() -> {
+            deleteRelations(id);
+            PreparedStatement statement = prepare(getDeleteSql());
+            statement.setInt(1, id);
+            statement.executeUpdate();
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rows are inserted as one JDBC batch inside a single transaction.
+     * </p>
+     */
+    @Override
+    public void createAll(Collection<T> objs) {
+        List<T> items = List.copyOf(objs);
+        inTransaction(() -> writeRelationsOfChanged(items, executeBatch(getInsertSql(), items, this::bindInsert)));
+        items.forEach(this::observeId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rows are updated as one JDBC batch inside a single transaction.
+     * </p>
+     */
+    @Override
+    public void updateAll(Collection<T> objs) {
+        List<T> items = List.copyOf(objs);
+        inTransaction(() -> writeRelationsOfChanged(items, executeBatch(getUpdateSql(), items, this::bindUpdate)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rows are deleted as one JDBC batch inside a single transaction.
+     * </p>
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        inTransaction(() -> {
+            for (Integer id : ids) {
+                deleteRelations(id);
+            }
+            executeBatch(getDeleteSql(), ids, (statement, id) -> statement.setInt(1, id));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All changes are applied inside a single transaction. Consecutive changes of the same kind
+     * are sent as one JDBC batch.
+     * </p>
+     */
+    @Override
+    public void commit(UnitOfWork<T> work) {
+        List<UnitOfWork.Change<T>> changes = work.getChanges();
+        inTransaction(() -> {
+            int start = 0;
+            while (start < changes.size()) {
+                UnitOfWork.Operation operation = changes.get(start).operation();
+                int end = start + 1;
+                while (end < changes.size() && changes.get(end).operation() == operation) {
+                    end++;
+                }
+                List<UnitOfWork.Change<T>> run = changes.subList(start, end);
+                switch (operation) {
+                    case CREATE -> createAll(run.stream().map(UnitOfWork.Change::obj).toList());
+                    case UPDATE -> updateAll(run.stream().map(UnitOfWork.Change::obj).toList());
+                    case DELETE -> deleteAll(run.stream().map(UnitOfWork.Change::id).toList());
+                }
+                start = end;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IDs come from an in-process {@link IdSequence} seeded once from the table's highest id,
+     * so allocation does not touch the database after the first call.
+     * </p>
+     */
+    @Override
+    public int reserveIds(int count) {
+        return getIdSequence().nextBlock(count);
+    }
+
+    /**
+     * @return The id sequence of the table, seeding it from the database on first use.
+     */
+    private IdSequence getIdSequence() {
+        IdSequence sequence = idSequence.get();
+        if (sequence != null) return sequence;
+        synchronized (idSequence) {
+            if (idSequence.get() == null) {
+                idSequence.set(read(() -> {
+                    try (ResultSet resultSet = prepare(getSelectMaxIdSql()).executeQuery()) {
+                        return new IdSequence(resultSet.next() ? resultSet.getInt(1) : 0);
+                    }
+                }));
+            }
+            return idSequence.get();
+        }
+    }
+
+    /**
+     * Records the id of an inserted entity in the sequence, if the sequence is in use.
+     */
+    private void observeId(T obj) {
+        IdSequence sequence = idSequence.get();
+        if (sequence != null) {
+            sequence.observe(obj.getId());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Rows are read from an open result set with a bounded fetch size as the stream is consumed.
+     * The stream holds a read connection until it is closed, which also releases the result set
+     * and its statement. It must be consumed on the thread that opened it.
+     * </p>
+     */
+    @Override
+    public Stream<T> stream() {
+        ConnectionPool.PooledConnection reader = pool.acquireReader();
         try {
-            connection = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+            PreparedStatement statement = reader.getConnection().prepareStatement(getSelectAllSql());
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            ResultSet resultSet = statement.executeQuery();
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!resultSet.next()) return false;
+                        T obj = createObjectFromResultSet(resultSet);
+                        readRelations(obj);
+                        action.accept(obj);
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try {
+                    resultSet.close();
+                    statement.close();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    pool.releaseReader(reader);
+                }
+            });
         } catch (SQLException e) {
+            pool.releaseReader(reader);
             throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            pool.releaseReader(reader);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the relations of the batch entries that changed a row.
+     *
+     * @param items  The entities of the batch, in batch order.
+     * @param counts The update counts returned by the batch.
+     */
+    private void writeRelationsOfChanged(List<T> items, int[] counts) throws SQLException {
+        List<T> changed = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                changed.add(items.get(i));
+            }
+        }
+        if (!changed.isEmpty()) {
+            writeAllRelations(changed);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> getAll() {
+        return read(() -> {
+            List<T> result = new ArrayList<>();
+            try (ResultSet resultSet = prepare(getSelectAllSql()).executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(createObjectFromResultSet(resultSet));
+                }
+            }
+            readAllRelations(result);
+            return result;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T findByUnique(String field, Object value) {
+        String column = getUniqueColumns().get(field);
+        if (column == null) {
+            return Repository.super.findByUnique(field, value);
         }
+        if (value == null) return null;
+        return read(() -> {
+            PreparedStatement statement = prepare(getSelectAllSql() + " WHERE " + column + " = ?");
+            statement.setObject(1, value);
+            T obj = null;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    obj = createObjectFromResultSet(resultSet);
+                }
+            }
+            if (obj != null) {
+                readRelations(obj);
+            }
+            return obj;
+        });
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Fields mapped by {@link #getIndexedColumns()} are looked up with a query on the column.
+     * </p>
+     */
     @Override
-    public void close() throws Exception {
-        connection.close();
+    public List<T> findBy(String field, Object value) {
+        String column = getIndexedColumns().get(field);
+        if (column == null) {
+            return Repository.super.findBy(field, value);
+        }
+        if (value == null) return new ArrayList<>();
+        return query(getSelectWhereSql(column), columnValue(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Fields mapped by {@link #getIndexedColumns()} are looked up with a range query on the column.
+     * </p>
+     */
+    @Override
+    public <V extends Comparable<? super V>> List<T> findInRange(String field, V from, V to) {
+        String column = getIndexedColumns().get(field);
+        if (column == null) {
+            return Repository.super.findInRange(field, from, to);
+        }
+        return query(getSelectRangeSql(column), columnValue(from), columnValue(to));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Fields mapped by {@link #getIndexedColumns()} are ordered by the database.
+     * </p>
+     */
+    @Override
+    public List<T> getAllOrderedBy(String field) {
+        String column = getIndexedColumns().get(field);
+        if (column == null) {
+            return Repository.super.getAllOrderedBy(field);
+        }
+        return query(getSelectOrderedSql(column));
+    }
+
+    /**
+     * @return The query selecting the rows whose column has a given value.
+     */
+    protected String getSelectWhereSql(String column) {
+        return getSelectAllSql() + " WHERE " + column + " = ?";
+    }
+
+    /**
+     * @return The query selecting the rows whose column lies in a half-open range.
+     */
+    protected String getSelectRangeSql(String column) {
+        return getSelectAllSql() + " WHERE " + column + " >= ? AND " + column + " < ?";
+    }
+
+    /**
+     * @return The query selecting all rows ordered by a column.
+     */
+    protected String getSelectOrderedSql(String column) {
+        return getSelectAllSql() + " ORDER BY " + column;
+    }
+
+    /**
+     * Runs a query returning whole rows and loads the relations of the objects read, like {@link #getAll()}.
+     */
+    private List<T> query(String sql, Object... params) {
+        return read(() -> {
+            PreparedStatement statement = prepare(sql);
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            List<T> result = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(createObjectFromResultSet(resultSet));
+                }
+            }
+            readAllRelations(result);
+            return result;
+        });
+    }
+
+    /**
+     * @return The value as it is stored in a column: the name of an enum constant, the ISO text of a
+     * date or time, the value itself otherwise.
+     */
+    private static Object columnValue(Object value) {
+        if (value instanceof Enum<?> constant) return constant.name();
+        if (value instanceof TemporalAccessor) return value.toString();
+        return value;
+    }
+
+    /**
+     * Returns the query plan SQLite chooses for a statement, one line per plan step, so callers
+     * can check that a query uses an index instead of scanning its table.
+     *
+     * @param sql    The SQL of the statement to explain.
+     * @param params The values of the statement's parameters, in order.
+     * @return The detail column of each row of {@code EXPLAIN QUERY PLAN}.
+     */
+    public List<String> explainQueryPlan(String sql, Object... params) {
+        return read(() -> {
+            try (PreparedStatement statement = pool.current().getConnection().prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                List<String> plan = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString("detail"));
+                    }
+                }
+                return plan;
+            }
+        });
+    }
+
+    /**
+     * Returns the prepared statement for the given SQL on the connection the current thread
+     * works on, preparing it on first use. Statements stay open until the pool is closed,
+     * so callers must not close them.
+     * It may only be called from work run by {@link #read} or {@link #inTransaction}.
+     *
+     * @param sql The SQL of the statement.
+     * @return The cached prepared statement.
+     */
+    protected PreparedStatement prepare(String sql) throws SQLException {
+        ConnectionPool.PooledConnection active = pool.current();
+        if (active == null) {
+            throw new IllegalStateException("No connection is held by the current thread");
+        }
+        return active.prepare(sql);
+    }
+
+    /**
+     * Runs the given query on a read connection and returns its result.
+     * Inside a transaction it runs on the writer, so it sees the transaction's own writes.
+     *
+     * @param query The query to run.
+     * @param <R>   The type of the result.
+     * @return The result of the query.
+     */
+    protected <R> R read(SqlQuery<R> query) {
+        ConnectionPool.PooledConnection reader = pool.acquireReader();
+        try {
+            return query.execute();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.releaseReader(reader);
+        }
+    }
+
+    /**
+     * Runs the given work on the writer connection inside a transaction, committing on success
+     * and rolling back on failure. Nested calls join the transaction that is already open.
+     *
+     * @param work The work to run.
+     */
+    protected void inTransaction(SqlWork work) {
+        ConnectionPool.PooledConnection writer = pool.acquireWriter();
+        Connection connection = writer.getConnection();
+        try {
+            if (!connection.getAutoCommit()) {
+                work.execute();
+                return;
+            }
+            connection.setAutoCommit(false);
+            try {
+                work.execute();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                writer.discardAfterCommit();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            writer.runAfterCommit();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.releaseWriter();
+        }
+    }
+
+    /**
+     * Runs an action once the transaction the current thread has open commits, or right away if it
+     * has none. The actions of a transaction that rolls back are dropped, so in-memory state updated
+     * by them never runs ahead of the database.
+     *
+     * @param action The action to run.
+     */
+    protected void afterCommit(Runnable action) {
+        if (pool.holdsWriter()) {
+            ConnectionPool.PooledConnection writer = pool.acquireWriter();
+            try {
+                if (!writer.getConnection().getAutoCommit()) {
+                    writer.addAfterCommit(action);
+                    return;
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            } finally {
+                pool.releaseWriter();
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Executes the given statement once per item as a single JDBC batch.
+     * The caller is responsible for running it inside a transaction when atomicity is needed.
+     *
+     * @param sql    The SQL of the statement.
+     * @param items  The items to bind, one batch entry each.
+     * @param binder Binds one item to the statement.
+     * @param <E>    The type of the items.
+     * @return The update count of each batch entry.
+     */
+    protected <E> int[] executeBatch(String sql, Collection<E> items, StatementBinder<E> binder) throws SQLException {
+        if (items.isEmpty()) {
+            return new int[0];
+        }
+        PreparedStatement statement = prepare(sql);
+        for (E item : items) {
+            binder.bind(statement, item);
+            statement.addBatch();
+        }
+        return statement.executeBatch();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (ownsPool) {
+            pool.close();
+        }
     }
 }
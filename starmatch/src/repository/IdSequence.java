@@ -0,0 +1,61 @@
+package repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe allocator of increasing integer IDs for one entity type.
+ * <p>
+ * The sequence tracks the highest ID handed out or observed so far, so allocating an ID costs O(1)
+ * instead of scanning the repository for its maximum ID. Concurrent callers never receive the same ID.
+ * </p>
+ */
+public class IdSequence {
+    private final AtomicInteger highWaterMark;
+
+    /**
+     * Constructs a sequence that continues after the given ID.
+     *
+     * @param highWaterMark The highest ID already in use.
+     */
+    public IdSequence(int highWaterMark) {
+        this.highWaterMark = new AtomicInteger(highWaterMark);
+    }
+
+    /**
+     * Allocates a single new ID.
+     *
+     * @return The allocated ID.
+     */
+    public int next() {
+        return highWaterMark.incrementAndGet();
+    }
+
+    /**
+     * Allocates a block of consecutive IDs.
+     *
+     * @param count The number of IDs to allocate.
+     * @return The first ID of the block; the block ends at {@code first + count - 1}.
+     */
+    public int nextBlock(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + count);
+        }
+        return highWaterMark.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Records an ID that was assigned outside of this sequence, so it is never handed out again.
+     *
+     * @param id The ID in use.
+     */
+    public void observe(int id) {
+        highWaterMark.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * @return The highest ID handed out or observed so far.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark.get();
+    }
+}
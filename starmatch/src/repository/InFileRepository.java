@@ -1,24 +1,76 @@
 package repository;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import model.*;
+import repository.codec.CodecRegistry;
+import repository.codec.CsvCodec;
+
+public class InFileRepository<T extends HasId> extends SnapshotFileRepository<T> {
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String CREATE_RECORD = "C";
+    private static final String UPDATE_RECORD = "U";
+    private static final String DELETE_RECORD = "D";
+    private static final long STREAMING_THRESHOLD = 64L * 1024 * 1024;
+    private static final long PARALLEL_LOAD_THRESHOLD = 16L * 1024 * 1024;
 
-public class InFileRepository<T extends HasId> implements Repository<T> {
-    private final String filePath;
     private final Class<T> entityClass;
+    private final CsvCodec<T> codec;
+    private final String logPath;
+    private final long compactionThreshold;
+    private final String indexPath;
+    private LineOffsetIndex offsetIndex;
+    private FileStamp offsetIndexStamp;
+    private ExecutorService compactionExecutor;
+    private boolean compactionScheduled;
+
+    private final ThreadLocal<CsvTokenizer> tokenizer = ThreadLocal.withInitial(CsvTokenizer::new);
 
     /**
      * Constructs a new FileRepository with the specified file path.
      *
      * @param filePath The path to the file where data will be stored.
-     * @param entityClass The class type of T, used for reflection.
+     * @param entityClass The class type of T, whose CSV codec is taken from the default {@link CodecRegistry}.
+     * @throws IllegalArgumentException If no CSV codec is registered for the class.
      */
     public InFileRepository(String filePath, Class<T> entityClass) {
-        this.filePath = filePath;
+        super(filePath);
         this.entityClass = entityClass;
+        this.codec = CodecRegistry.getDefault().csv(entityClass);
+        this.logPath = null;
+        this.compactionThreshold = 0;
+        this.indexPath = filePath + INDEX_SUFFIX;
+    }
+
+    /**
+     * Constructs a new FileRepository in log mode.
+     * <p>
+     * Mutations are appended as records to a log next to the data file ({@code filePath + ".log"})
+     * instead of rewriting the data file, so a single write costs O(record). The current state is the
+     * data file with the log replayed on top of it. Once the log grows past the given threshold, a
+     * background task folds it into a fresh data file and truncates it.
+     * </p>
+     *
+     * @param filePath            The path to the file where data will be stored.
+     * @param entityClass         The class type of T, whose CSV codec is taken from the default {@link CodecRegistry}.
+     * @param compactionThreshold The log size in bytes after which the log is compacted.
+     * @throws IllegalArgumentException If no CSV codec is registered for the class.
+     */
+    public InFileRepository(String filePath, Class<T> entityClass, long compactionThreshold) {
+        super(filePath);
+        this.entityClass = entityClass;
+        this.codec = CodecRegistry.getDefault().csv(entityClass);
+        this.logPath = filePath + LOG_SUFFIX;
+        this.compactionThreshold = compactionThreshold;
+        this.indexPath = null;
     }
 
     /**
@@ -26,15 +78,28 @@ public class InFileRepository<T extends HasId> implements Repository<T> {
      */
     @Override
     public void create(T obj) {
-        doInFile(data -> data.putIfAbsent(obj.getId(), obj));
+        if (isLogMode()) {
+            doInLog(List.of(CREATE_RECORD + "," + convertObjectToLine(obj)), data -> putIfAbsent(data, obj));
+            return;
+        }
+        super.create(obj);
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Outside log mode, a read made while the snapshot is not loaded, or is out of date, does not load it.
+     * It looks the record up in an ID to byte offset index kept next to the data file ({@code filePath + ".idx"}),
+     * seeks to its record and parses only that record. The index is rewritten by every write of the data file
+     * and rebuilt with a single scan when it is missing or no longer matches the data file.
+     * </p>
      */
     @Override
-    public T get(Integer id) {
-        return readDataFromFile().get(id);
+    public synchronized T get(Integer id) {
+        if (isLogMode() || id == null || isSnapshotCurrent()) {
+            return loadSnapshot().get(id);
+        }
+        return readRecord(id);
     }
 
     /**
@@ -42,7 +107,11 @@ public class InFileRepository<T extends HasId> implements Repository<T> {
      */
     @Override
     public void update(T obj) {
-        doInFile(data -> data.replace(obj.getId(), obj));
+        if (isLogMode()) {
+            doInLog(List.of(UPDATE_RECORD + "," + convertObjectToLine(obj)), data -> replace(data, obj));
+            return;
+        }
+        super.update(obj);
     }
 
     /**
@@ -50,130 +119,441 @@ public class InFileRepository<T extends HasId> implements Repository<T> {
      */
     @Override
     public void delete(Integer id) {
-        doInFile(data -> data.remove(id));
+        if (isLogMode()) {
+            doInLog(List.of(DELETE_RECORD + "," + id), data -> remove(data, id));
+            return;
+        }
+        super.delete(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Files up to 64 MiB, and every file in log mode, are streamed from the resident snapshot without copying it.
+     * Larger files whose snapshot is not loaded yet are read lazily with a buffered reader, parsing one record at a
+     * time, so a scan runs in constant memory and stops reading as soon as the stream is short-circuited.
+     * Users read this way get the same friend resolver as the snapshot, so their friends are looked up lazily
+     * through the unique email index, which loads the snapshot on first use.
+     * </p>
+     */
+    @Override
+    public synchronized Stream<T> stream() {
+        File file = new File(filePath);
+        if (isLogMode() || isSnapshotCurrent() || file.length() <= STREAMING_THRESHOLD) {
+            return loadSnapshot().values().stream();
+        }
+
+        try {
+            CsvRecordReader reader = new CsvRecordReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
+            return reader.records()
+                    .filter(record -> !record.isEmpty())
+                    .map(this::parseLine)
+                    .filter(Objects::nonNull);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + filePath);
+            e.printStackTrace();
+            return Stream.empty();
+        }
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * All objects are written with a single file rewrite, or a single log append in log mode.
+     * </p>
      */
     @Override
-    public List<T> getAll() {
-        return new ArrayList<>(readDataFromFile().values());
+    public void createAll(Collection<T> objs) {
+        if (isLogMode()) {
+            doInLog(toRecords(CREATE_RECORD, objs), data -> objs.forEach(obj -> putIfAbsent(data, obj)));
+            return;
+        }
+        super.createAll(objs);
     }
 
     /**
-     * Performs an operation on the data stored in the file.
+     * {@inheritDoc}
+     * <p>
+     * All objects are written with a single file rewrite, or a single log append in log mode.
+     * </p>
+     */
+    @Override
+    public void updateAll(Collection<T> objs) {
+        if (isLogMode()) {
+            doInLog(toRecords(UPDATE_RECORD, objs), data -> objs.forEach(obj -> replace(data, obj)));
+            return;
+        }
+        super.updateAll(objs);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All objects are removed with a single file rewrite, or a single log append in log mode.
+     * </p>
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        if (isLogMode()) {
+            List<String> records = ids.stream().map(id -> DELETE_RECORD + "," + id).toList();
+            doInLog(records, data -> ids.forEach(id -> remove(data, id)));
+            return;
+        }
+        super.deleteAll(ids);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All changes are written with a single file rewrite, or a single log append in log mode.
+     * </p>
+     */
+    @Override
+    public void commit(UnitOfWork<T> work) {
+        if (work.isEmpty()) return;
+        List<UnitOfWork.Change<T>> changes = work.getChanges();
+        if (isLogMode()) {
+            List<String> records = changes.stream().map(change -> switch (change.operation()) {
+                case CREATE -> CREATE_RECORD + "," + convertObjectToLine(change.obj());
+                case UPDATE -> UPDATE_RECORD + "," + convertObjectToLine(change.obj());
+                case DELETE -> DELETE_RECORD + "," + change.id();
+            }).toList();
+            doInLog(records, data -> changes.forEach(change -> apply(data, change)));
+            return;
+        }
+        super.commit(work);
+    }
+
+    /**
+     * Folds the log into a fresh data file and truncates the log.
+     * The new data file is written to a temporary file first and then moved over the old one,
+     * so a crash never leaves a partially written data file behind. Does nothing outside log mode.
+     */
+    public synchronized void compact() {
+        if (!isLogMode()) return;
+        compactionScheduled = false;
+
+        File log = new File(logPath);
+        if (!log.exists() || log.length() == 0) return;
+
+        Map<Integer, T> data = loadSnapshot();
+        String tempPath = filePath + ".tmp";
+        if (writeLines(data, tempPath) == null) return;
+        try {
+            Files.move(Paths.get(tempPath), Paths.get(filePath), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(log.toPath());
+            markSnapshotCurrent();
+        } catch (IOException e) {
+            System.err.println("Error compacting log: " + logPath);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return true if mutations are appended to a log instead of rewriting the data file.
+     */
+    private boolean isLogMode() {
+        return logPath != null;
+    }
+
+    /**
+     * Reads a single record through the offset index, rebuilding the index first if it is missing or stale.
      *
-     * @param function The function to apply to the data.
+     * @param id The ID of the record.
+     * @return The parsed record, or null if there is no record with the ID.
      */
-    private void doInFile(Consumer<Map<Integer, T>> function) {
-        Map<Integer, T> data = readDataFromFile();
-        function.accept(data);
-        writeDataToFile(data);
+    private T readRecord(Integer id) {
+        FileStamp stamp = currentStamp();
+        if (stamp.size() == 0) return null;
+        Path dataPath = Paths.get(filePath);
+        if (offsetIndex == null || !stamp.equals(offsetIndexStamp)) {
+            LineOffsetIndex stored = LineOffsetIndex.read(Paths.get(indexPath), stamp.size(), stamp.modified());
+            if (stored == null) {
+                try {
+                    stored = LineOffsetIndex.scan(dataPath);
+                } catch (IOException e) {
+                    System.err.println("Error indexing file: " + filePath);
+                    e.printStackTrace();
+                    return loadSnapshot().get(id);
+                }
+                stored.write(Paths.get(indexPath), stamp.size(), stamp.modified());
+            }
+            offsetIndex = stored;
+            offsetIndexStamp = stamp;
+        }
+
+        long offset = offsetIndex.offsetOf(id);
+        if (offset < 0) return null;
+        try {
+            T obj = parseLine(LineOffsetIndex.readRecord(dataPath, offset));
+            if (obj != null && obj.getIntId() == id) {
+                return obj;
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + filePath);
+            e.printStackTrace();
+        }
+        offsetIndex = null;
+        return loadSnapshot().get(id);
+    }
+
+    /**
+     * Keeps the offset index of a freshly written data file, in memory and next to the data file.
+     */
+    private void saveOffsetIndex(LineOffsetIndex index, FileStamp stamp) {
+        index.write(Paths.get(indexPath), stamp.size(), stamp.modified());
+        offsetIndex = index;
+        offsetIndexStamp = stamp;
     }
 
     /**
-     * Reads the data from the file.
+     * Applies operations to the snapshot in place and appends the matching records to the log.
+     * Operations refused by the snapshot are not logged; if the log cannot be written, the snapshot
+     * is discarded.
      *
-     * @return The data stored in the file, or an empty map if the file is empty or does not exist.
+     * @param records  The records to append, without line separators.
+     * @param function The function applying the operations to the data.
      */
-    private Map<Integer, T> readDataFromFile() {
-        Map<Integer, T> data = new HashMap<>();
+    private synchronized void doInLog(List<String> records, Consumer<Map<Integer, T>> function) {
+        Map<Integer, T> data = loadSnapshot();
+        applyToSnapshot(data, function);
+        if (appendToLog(records)) {
+            markSnapshotCurrent();
+        } else {
+            discardSnapshot();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * In log mode, the stamp also covers the log.
+     * </p>
+     */
+    @Override
+    protected FileStamp currentStamp() {
         File file = new File(filePath);
+        if (!isLogMode()) {
+            return new FileStamp(file.lastModified(), file.length(), 0, 0);
+        }
+        File log = new File(logPath);
+        return new FileStamp(file.lastModified(), file.length(), log.lastModified(), log.length());
+    }
 
-        if (!file.exists() || file.length() == 0) return data;
+    /**
+     * Builds one log record of the given type for each object.
+     */
+    private List<String> toRecords(String type, Collection<T> objs) {
+        return objs.stream().map(obj -> type + "," + convertObjectToLine(obj)).toList();
+    }
 
-        List<User> allUsers = new ArrayList<>();
+    /**
+     * Appends records to the log and schedules a compaction once the log passes the threshold.
+     *
+     * @param records The records to append, without line separators.
+     * @return true if the records were written.
+     */
+    private synchronized boolean appendToLog(List<String> records) {
+        try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(logPath), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String record : records) {
+                bw.write(record);
+                bw.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to log: " + logPath);
+            e.printStackTrace();
+            return false;
+        }
+
+        if (!compactionScheduled && new File(logPath).length() >= compactionThreshold) {
+            compactionScheduled = true;
+            if (compactionExecutor == null) {
+                compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "log-compaction-" + entityClass.getSimpleName());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            compactionExecutor.execute(this::compact);
+        }
+        return true;
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] fields = line.split(",");
-                if (fields.length == 0 || fields[0].isEmpty()) {
-                    continue;
+    /**
+     * Reads the data from the file, replaying the log on top of it when in log mode.
+     *
+     * @return The data stored in the file, or an empty map if the file is empty or does not exist.
+     */
+    @Override
+    protected synchronized Map<Integer, T> readDataFromFile() {
+        Map<Integer, T> data = new HashMap<>();
+
+        if (new File(filePath).length() >= PARALLEL_LOAD_THRESHOLD) {
+            readLinesInParallel(data);
+        } else {
+            readLines(filePath, line -> {
+                T obj = parseLine(line);
+                if (obj != null) {
+                    data.put(obj.getId(), obj);
                 }
+            });
+        }
 
-                try {
-                    Integer id = Integer.parseInt(fields[0]);
-                    T obj = createObjectFromFields(fields);
-                    if (obj != null) {
-                        data.put(id, obj);
-
-                        if (obj instanceof User user) {
-                            allUsers.add(user);
-                        }
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+        if (isLogMode()) {
+            readLines(logPath, record -> replayRecord(data, record));
+        }
+
+        return data;
+    }
+
+    /**
+     * Passes every non-empty record of a file to the given consumer. A record is one line, or
+     * several when a quoted field contains line breaks.
+     *
+     * @param path     The path of the file to read.
+     * @param consumer The consumer receiving each record.
+     */
+    private void readLines(String path, Consumer<String> consumer) {
+        File file = new File(path);
+
+        if (!file.exists() || file.length() == 0) return;
+
+        try (CsvRecordReader reader = new CsvRecordReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            String record;
+            while ((record = reader.readRecord()) != null) {
+                if (!record.isEmpty()) {
+                    consumer.accept(record);
                 }
             }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-            for (User user : allUsers) {
-                List<User> resolvedFriends = user.getRawFriendEmails().stream()
-                        .map(email -> allUsers.stream()
-                                .filter(u -> u.getEmail().equals(email))
-                                .findFirst()
-                                .orElse(null))
-                        .filter(Objects::nonNull)
-                        .toList();
-                user.setFriends(resolvedFriends);
+    /**
+     * Parses the data file on the common fork-join pool, in chunks aligned to record boundaries,
+     * and puts the objects into the data in file order.
+     *
+     * @param data The map receiving the parsed objects.
+     */
+    private void readLinesInParallel(Map<Integer, T> data) {
+        try {
+            for (T obj : ParallelLineParser.parse(Paths.get(filePath), this::parseLine)) {
+                data.put(obj.getId(), obj);
             }
         } catch (IOException e) {
+            System.err.println("Error reading file: " + filePath);
             e.printStackTrace();
         }
+    }
 
-        return data;
+    /**
+     * Parses one record of the data file into an object.
+     *
+     * @param line The CSV line.
+     * @return The parsed object, or null if the line could not be parsed.
+     */
+    private T parseLine(String line) {
+        String[] fields = tokenizer.get().tokenize(line);
+        if (fields.length == 0 || fields[0].isEmpty()) {
+            return null;
+        }
+
+        try {
+            T obj = createObjectFromFields(fields);
+            attachFriendResolver(obj);
+            return obj;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
     /**
-     * Writes the data to the file.
+     * Applies one log record to the data, with the same semantics as the operation that wrote it.
+     *
+     * @param data   The data to apply the record to.
+     * @param record The log record.
+     */
+    private void replayRecord(Map<Integer, T> data, String record) {
+        int separator = record.indexOf(',');
+        if (separator < 0) return;
+
+        String type = record.substring(0, separator);
+        String payload = record.substring(separator + 1);
+        switch (type) {
+            case CREATE_RECORD -> {
+                T obj = parseLine(payload);
+                if (obj != null) data.putIfAbsent(obj.getId(), obj);
+            }
+            case UPDATE_RECORD -> {
+                T obj = parseLine(payload);
+                if (obj != null) data.replace(obj.getId(), obj);
+            }
+            case DELETE_RECORD -> data.remove(Integer.parseInt(payload.trim()));
+            default -> System.err.println("Skipping unknown log record: " + record);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The offset index of the written file is kept in memory and next to the data file.
+     * </p>
+     */
+    @Override
+    protected boolean writeDataToFile(Map<Integer, T> data) {
+        LineOffsetIndex written = writeLines(data, filePath);
+        if (written == null) return false;
+        saveOffsetIndex(written, currentStamp());
+        return true;
+    }
+
+    /**
+     * Writes the data to a file, recording the byte offset of every record as it goes.
      *
      * @param data The data to write to the file.
+     * @param path The path of the file to write.
+     * @return The offset index of the written file, or null if it could not be written.
      */
-    private void writeDataToFile(Map<Integer, T> data) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath))) {
+    private LineOffsetIndex writeLines(Map<Integer, T> data, String path) {
+        byte[] lineSeparator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        LineOffsetIndex.Builder index = new LineOffsetIndex.Builder();
+        long offset = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(path)), 1 << 16)) {
             for (T obj : data.values()) {
-                String line = convertObjectToLine(obj);
-                bw.write(line);
-                bw.newLine();
+                byte[] line = convertObjectToLine(obj).getBytes(StandardCharsets.UTF_8);
+                index.add(obj.getIntId(), offset);
+                out.write(line);
+                out.write(lineSeparator);
+                offset += line.length + lineSeparator.length;
             }
         } catch (IOException e) {
-            System.err.println("Error writing to file: " + filePath);
+            System.err.println("Error writing to file: " + path);
             e.printStackTrace();
+            return null;
         }
+        return index.build();
     }
 
     /**
-     * Converts an object to a CSV line using the object's own method.
+     * Converts an object to a CSV line using the codec of the entity type.
      *
      * @param obj The object to convert.
      * @return The CSV line representation of the object.
      */
     private String convertObjectToLine(T obj) {
-        return obj.convertObjectToLine();
+        return codec.encode(obj);
     }
 
     /**
-     * Creates an object from the CSV fields by invoking the `createObjectFromFields` method.
-     * This assumes that the class T implements `HasId` and provides this static method.
+     * Creates an object from the CSV fields using the codec of the entity type.
      *
      * @param fields The fields from the CSV line.
-     * @return A new instance of T created from the fields, or null if creation fails.
+     * @return A new instance of T created from the fields.
      */
     private T createObjectFromFields(String[] fields) {
-        try {
-            return switch (entityClass.getSimpleName()) {
-                case "User" -> (T) User.createObjectFromFields(fields);
-                case "Quote" -> (T) Quote.createObjectFromFields(fields);
-                case "StarSign" -> (T) StarSign.createObjectFromFields(fields);
-                case "Admin" -> (T) Admin.createObjectFromFields(fields);
-                case "Trait" -> (T) Trait.createObjectFromFields(fields);
-                default -> null;
-            };
-        } catch (Exception e) {
-            System.err.println("Error invoking createObjectFromFields for class: " + entityClass.getName());
-            e.printStackTrace();
-            return null;
-        }
+        return codec.decode(fields);
     }
 }
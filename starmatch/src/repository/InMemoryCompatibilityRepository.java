@@ -0,0 +1,94 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.Compatibility;
+
+/**
+ * A compatibility repository that keeps the scores in memory.
+ * <p>
+ * Scores are stored by pair, and every user maps to the pairs it takes part in,
+ * so both a pair lookup and the lookup of a user's pairs are single hash lookups.
+ * </p>
+ */
+public class InMemoryCompatibilityRepository implements CompatibilityRepository {
+
+    private record Pair(Integer userId, Integer friendId) {
+    }
+
+    private final Map<Pair, Compatibility> scores = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Pair>> pairsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Compatibility get(Integer userId, Integer friendId) {
+        return scores.get(new Pair(userId, friendId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void save(Compatibility compatibility) {
+        Pair pair = new Pair(compatibility.getUserId(), compatibility.getFriendId());
+        scores.put(pair, compatibility);
+        pairsByUser.computeIfAbsent(pair.userId(), id -> ConcurrentHashMap.newKeySet()).add(pair);
+        pairsByUser.computeIfAbsent(pair.friendId(), id -> ConcurrentHashMap.newKeySet()).add(pair);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void delete(Integer userId, Integer friendId) {
+        Pair pair = new Pair(userId, friendId);
+        if (scores.remove(pair) != null) {
+            unlink(pair.userId(), pair);
+            unlink(pair.friendId(), pair);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Compatibility> getForUser(Integer userId) {
+        List<Compatibility> result = new ArrayList<>();
+        for (Pair pair : pairsByUser.getOrDefault(userId, Set.of())) {
+            Compatibility compatibility = scores.get(pair);
+            if (compatibility != null) {
+                result.add(compatibility);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void deleteForUser(Integer userId) {
+        Set<Pair> pairs = pairsByUser.remove(userId);
+        if (pairs == null) return;
+        for (Pair pair : pairs) {
+            scores.remove(pair);
+            unlink(pair.userId().equals(userId) ? pair.friendId() : pair.userId(), pair);
+        }
+    }
+
+    private void unlink(Integer userId, Pair pair) {
+        Set<Pair> pairs = pairsByUser.get(userId);
+        if (pairs != null) {
+            pairs.remove(pair);
+            if (pairs.isEmpty()) {
+                pairsByUser.remove(userId);
+            }
+        }
+    }
+}
@@ -1,25 +1,42 @@
 package repository;
 
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 import model.HasId;
+import utils.IntObjectMap;
 
 /**
  * A repository implementation that stores data in memory.
+ * <p>
+ * Objects are kept in an {@link IntObjectMap} keyed by their primitive id, so the {@code int} overloads of
+ * {@link #get(int)} and {@link #delete(int)} and inserts of objects without unique keys do not allocate.
+ * The map keeps its entries in hash order, so {@link #getAll()} and {@link #stream()} sort them by id,
+ * the order callers saw when the objects were kept in a {@code HashMap}.
+ * </p>
  *
  * @param <T> The type of objects stored in the repository, which must implement HasId.
  */
 public class InMemoryRepository<T extends HasId> implements Repository<T> {
-    private final Map<Integer, T> data = new HashMap<>();
+    private static final Comparator<HasId> BY_ID = Comparator.comparingInt(HasId::getIntId);
+
+    private final IntObjectMap<T> data = new IntObjectMap<>();
+    private final UniqueIndex<T> uniqueIndex = new UniqueIndex<>();
+    private final IdSequence idSequence = new IdSequence(0);
 
     /**
      * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException If a unique key value of the object is already taken by another object.
      */
     @Override
     public void create(T obj) {
-        data.putIfAbsent(obj.getId(), obj);
+        int id = obj.getIntId();
+        if (data.containsKey(id)) return;
+        uniqueIndex.add(obj);
+        data.put(id, obj);
+        idSequence.observe(id);
     }
 
     /**
@@ -27,15 +44,28 @@ public class InMemoryRepository<T extends HasId> implements Repository<T> {
      */
     @Override
     public T get(Integer id) {
+        return id == null ? null : data.get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get(int id) {
         return data.get(id);
     }
 
     /**
      * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException If a unique key value of the object is already taken by another object.
      */
     @Override
     public void update(T obj) {
-        data.replace(obj.getId(), obj);
+        int id = obj.getIntId();
+        if (!data.containsKey(id)) return;
+        uniqueIndex.add(obj);
+        data.put(id, obj);
     }
 
     /**
@@ -43,14 +73,56 @@ public class InMemoryRepository<T extends HasId> implements Repository<T> {
      */
     @Override
     public void delete(Integer id) {
-        data.remove(id);
+        if (id != null) {
+            delete(id.intValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(int id) {
+        if (data.remove(id) != null) {
+            uniqueIndex.remove(id);
+        }
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The objects are returned in id order.
+     * </p>
      */
     @Override
     public List<T> getAll() {
-        return data.values().stream().toList();
+        return stream().toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stream is a live view of the stored objects in id order; the objects are not copied.
+     * </p>
+     */
+    @Override
+    public Stream<T> stream() {
+        return data.values().stream().sorted(BY_ID);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int reserveIds(int count) {
+        return idSequence.nextBlock(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T findByUnique(String field, Object value) {
+        return uniqueIndex.get(field, value);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,219 @@
+package repository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Maps the IDs of the records of a CSV data file to the byte offsets the records start at, so a single
+ * record can be read by seeking to it instead of parsing the whole file. A record is a line, or several
+ * lines when a quoted field contains line breaks.
+ * <p>
+ * The index is stored next to the data file together with the size and modification time the data
+ * file had when the index was written, so an index that no longer matches its data file is detected
+ * and rebuilt. In memory it is a pair of arrays sorted by ID.
+ * </p>
+ */
+class LineOffsetIndex {
+    private static final int MAGIC = 0x534D4931; // "SMI1"
+
+    private final int[] ids;
+    private final long[] offsets;
+
+    private LineOffsetIndex(int[] ids, long[] offsets) {
+        this.ids = ids;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Collects the offsets of the records of a data file while it is written.
+     * When an ID is added twice, the later record wins, as it does when the file is loaded.
+     */
+    static class Builder {
+        private int[] ids = new int[64];
+        private long[] offsets = new long[64];
+        private int size;
+
+        /**
+         * @param id     The ID of the record.
+         * @param offset The byte offset the record starts at.
+         */
+        void add(int id, long offset) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            ids[size] = id;
+            offsets[size] = offset;
+            size++;
+        }
+
+        LineOffsetIndex build() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            // stable, so the later of two records with the same ID stays last
+            Arrays.sort(order, (a, b) -> Integer.compare(ids[a], ids[b]));
+            int[] sortedIds = new int[size];
+            long[] sortedOffsets = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int id = ids[order[i]];
+                if (count > 0 && sortedIds[count - 1] == id) {
+                    count--;
+                }
+                sortedIds[count] = id;
+                sortedOffsets[count] = offsets[order[i]];
+                count++;
+            }
+            return new LineOffsetIndex(Arrays.copyOf(sortedIds, count), Arrays.copyOf(sortedOffsets, count));
+        }
+    }
+
+    /**
+     * @param id The ID of the record.
+     * @return The byte offset of the record, or -1 if the ID is not in the index.
+     */
+    long offsetOf(int id) {
+        int position = Arrays.binarySearch(ids, id);
+        return position < 0 ? -1 : offsets[position];
+    }
+
+    /**
+     * Builds the index of a data file by scanning it for record starts and reading the ID before
+     * the first comma of each record. Records that do not start with a number are left out.
+     *
+     * @param dataPath The path of the data file.
+     * @return The index of the file.
+     */
+    static LineOffsetIndex scan(Path dataPath) throws IOException {
+        Builder builder = new Builder();
+        CsvRecordScanner scanner = new CsvRecordScanner();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(dataPath), 1 << 16)) {
+            long position = 0;
+            long recordStart = 0;
+            int id = 0;
+            int digits = 0;
+            boolean inId = true;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (scanner.endsRecord(b)) {
+                    inId = true;
+                    id = 0;
+                    digits = 0;
+                    recordStart = position + 1;
+                } else if (inId) {
+                    if (b >= '0' && b <= '9' && digits < 10) {
+                        id = id * 10 + (b - '0');
+                        digits++;
+                    } else {
+                        if (b == ',' && digits > 0) {
+                            builder.add(id, recordStart);
+                        }
+                        inId = false;
+                    }
+                }
+                position++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads an index file, if it still matches its data file.
+     *
+     * @param indexPath    The path of the index file.
+     * @param dataSize     The current size of the data file.
+     * @param dataModified The current modification time of the data file.
+     * @return The index, or null if the file is missing, unreadable or stale.
+     */
+    static LineOffsetIndex read(Path indexPath, long dataSize, long dataModified) {
+        if (!Files.exists(indexPath)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readLong() != dataSize || in.readLong() != dataModified) {
+                return null;
+            }
+            int count = in.readInt();
+            int[] ids = new int[count];
+            long[] offsets = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = in.readInt();
+                offsets[i] = in.readLong();
+            }
+            return new LineOffsetIndex(ids, offsets);
+        } catch (IOException e) {
+            System.err.println("Error reading offset index: " + indexPath);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index, stamped with the size and modification time of its data file.
+     *
+     * @param indexPath    The path of the index file.
+     * @param dataSize     The size of the data file.
+     * @param dataModified The modification time of the data file.
+     */
+    void write(Path indexPath, long dataSize, long dataModified) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeLong(dataSize);
+            out.writeLong(dataModified);
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.writeInt(ids[i]);
+                out.writeLong(offsets[i]);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing offset index: " + indexPath);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the record starting at a byte offset of a data file.
+     *
+     * @param dataPath The path of the data file.
+     * @param offset   The byte offset the record starts at.
+     * @return The record, without its line separator.
+     */
+    static String readRecord(Path dataPath, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+            CsvRecordScanner scanner = new CsvRecordScanner();
+            ByteBuffer buffer = ByteBuffer.allocate(512);
+            long position = offset;
+            int scanned = 0;
+            while (true) {
+                int read = channel.read(buffer, position);
+                int end = -1;
+                while (scanned < buffer.position()) {
+                    if (scanner.endsRecord(buffer.get(scanned++) & 0xFF)) {
+                        end = scanned - 1;
+                        break;
+                    }
+                }
+                if (end >= 0 || read < 0 || position + read >= channel.size()) {
+                    int length = end >= 0 ? end : buffer.position();
+                    if (end >= 0 && length > 0 && buffer.array()[length - 1] == '\r') {
+                        length--;
+                    }
+                    return new String(buffer.array(), 0, length, StandardCharsets.UTF_8);
+                }
+                position += read;
+                if (!buffer.hasRemaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import model.HasId;
+import model.User;
+import repository.codec.BinaryCodec;
+import repository.codec.BinaryReader;
+import repository.codec.BinaryWriter;
+import repository.codec.CodecRegistry;
+
+/**
+ * A repository that stores its objects in fixed-size slots of a memory-mapped file.
+ * <p>
+ * The object with ID {@code id} lives in the slot at {@code HEADER_SIZE + id * slotSize}: a four-byte
+ * record length, 0 for an empty slot, followed by the fields written by the entity's {@link BinaryCodec}.
+ * A point read is an offset computation plus one decode, and a write patches its slot in place, so
+ * nothing is parsed when the store is opened and the operating system's page cache does the caching.
+ * Reads return freshly decoded objects; changes to them are stored by calling {@link #update(HasId)}.
+ * </p>
+ * <p>
+ * The header records the slot size and the highest ID in use, which bounds the scans of {@link #getAll()}.
+ * The file is mapped as a single region, so it is limited to 2 GiB, and IDs should be dense, since every
+ * ID up to the highest one takes a slot. Writes reach the disk when the operating system flushes the
+ * mapped pages, or on {@link #flush()} and {@link #close()}. A write empties its slot before patching the
+ * fields and stores the length last, so a crash in the middle of a write leaves the slot empty rather
+ * than holding a length that does not match its fields.
+ * </p>
+ *
+ * @param <T> The type of objects stored, which must implement HasId.
+ */
+public class MappedFileRepository<T extends HasId> implements Repository<T>, AutoCloseable {
+    private static final int MAGIC = 0x534D4D31; // "SMM1"
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE_OFFSET = 4;
+    private static final int HIGH_WATER_MARK_OFFSET = 8;
+    private static final int LENGTH_SIZE = 4;
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final String filePath;
+    private final BinaryCodec<T> codec;
+    private final int slotSize;
+    private final FileChannel channel;
+    private final BinaryWriter writer = new BinaryWriter();
+    private final byte[] slotBuffer;
+    private MappedByteBuffer buffer;
+    private IdSequence idSequence;
+    private UniqueIndex<T> uniqueIndex;
+
+    /**
+     * Opens or creates a mapped store with the specified file path.
+     *
+     * @param filePath    The path to the file where data will be stored.
+     * @param entityClass The class type of T, whose binary codec is taken from the default {@link CodecRegistry}.
+     * @param slotSize    The size of a slot in bytes, including its four-byte length. Ignored for an existing
+     *                    file, which keeps the slot size it was created with.
+     * @throws IllegalArgumentException If no binary codec is registered for the class.
+     */
+    public MappedFileRepository(String filePath, Class<T> entityClass, int slotSize) {
+        this(filePath, CodecRegistry.getDefault().binary(entityClass), slotSize);
+    }
+
+    /**
+     * Opens or creates a mapped store with the specified file path.
+     *
+     * @param filePath The path to the file where data will be stored.
+     * @param codec    The codec encoding and decoding the objects.
+     * @param slotSize The size of a slot in bytes, including its four-byte length. Ignored for an existing
+     *                 file, which keeps the slot size it was created with.
+     */
+    public MappedFileRepository(String filePath, BinaryCodec<T> codec, int slotSize) {
+        if (slotSize <= LENGTH_SIZE) {
+            throw new IllegalArgumentException("Slot size must be larger than " + LENGTH_SIZE + ": " + slotSize);
+        }
+        this.filePath = filePath;
+        this.codec = codec;
+        try {
+            this.channel = FileChannel.open(Paths.get(filePath),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() >= HEADER_SIZE) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                if (buffer.getInt(0) != MAGIC) {
+                    channel.close();
+                    throw new IllegalArgumentException("Not a mapped repository file: " + filePath);
+                }
+                this.slotSize = buffer.getInt(SLOT_SIZE_OFFSET);
+            } else {
+                this.slotSize = slotSize;
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) INITIAL_SLOTS * slotSize);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(SLOT_SIZE_OFFSET, slotSize);
+                buffer.putInt(HIGH_WATER_MARK_OFFSET, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening mapped file: " + filePath, e);
+        }
+        this.slotBuffer = new byte[this.slotSize - LENGTH_SIZE];
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Does nothing if the slot of the object's ID is already taken.
+     * </p>
+     *
+     * @throws IllegalArgumentException If the encoded object does not fit in a slot, or a unique key value
+     *                                  of the object is already taken by another object.
+     */
+    @Override
+    public synchronized void create(T obj) {
+        if (readLength(obj.getIntId()) > 0) return;
+        checkUniqueKeys(obj);
+        write(obj);
+        if (idSequence != null) idSequence.observe(obj.getIntId());
+        if (uniqueIndex != null) uniqueIndex.add(obj);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized T get(Integer id) {
+        if (id == null || id < 0) return null;
+        int length = readLength(id);
+        if (length == 0) return null;
+        long offset = slotOffset(id) + LENGTH_SIZE;
+        buffer.get((int) offset, slotBuffer, 0, length);
+        T obj = codec.decode(new BinaryReader(slotBuffer, 0, length));
+        attachFriendResolver(obj);
+        return obj;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Does nothing if there is no object with the object's ID. The object's slot is overwritten in place.
+     * </p>
+     *
+     * @throws IllegalArgumentException If the encoded object does not fit in a slot, or a unique key value
+     *                                  of the object is already taken by another object.
+     */
+    @Override
+    public synchronized void update(T obj) {
+        if (readLength(obj.getIntId()) == 0) return;
+        checkUniqueKeys(obj);
+        write(obj);
+        if (uniqueIndex != null) uniqueIndex.add(obj);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void delete(Integer id) {
+        if (id == null || readLength(id) == 0) return;
+        buffer.putInt((int) slotOffset(id), 0);
+        if (uniqueIndex != null) uniqueIndex.remove(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Decodes every occupied slot up to the highest ID in use.
+     * </p>
+     */
+    @Override
+    public synchronized List<T> getAll() {
+        int highWaterMark = buffer.getInt(HIGH_WATER_MARK_OFFSET);
+        List<T> result = new ArrayList<>();
+        for (int id = 0; id <= highWaterMark; id++) {
+            T obj = get(id);
+            if (obj != null) {
+                result.add(obj);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<T> stream() {
+        return getAll().stream();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The lookup uses a hash index built by scanning the store the first time it is needed,
+     * by a lookup or by the first write of an object with unique keys, and kept up to date by
+     * every write after that.
+     * </p>
+     */
+    @Override
+    public synchronized T findByUnique(String field, Object value) {
+        if (value == null) return null;
+        buildUniqueIndex();
+        T indexed = uniqueIndex.get(field, value);
+        return indexed == null ? null : get(indexed.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The highest ID handed out is recorded in the file header, so IDs of deleted objects are not
+     * handed out again after a restart.
+     * </p>
+     */
+    @Override
+    public synchronized int reserveIds(int count) {
+        if (idSequence == null) {
+            idSequence = new IdSequence(buffer.getInt(HIGH_WATER_MARK_OFFSET));
+        }
+        int first = idSequence.nextBlock(count);
+        buffer.putInt(HIGH_WATER_MARK_OFFSET, Math.max(buffer.getInt(HIGH_WATER_MARK_OFFSET), idSequence.getHighWaterMark()));
+        return first;
+    }
+
+    /**
+     * Builds the unique index by scanning the store, if it was not built yet.
+     */
+    private void buildUniqueIndex() {
+        if (uniqueIndex != null) return;
+        uniqueIndex = new UniqueIndex<>();
+        for (T obj : getAll()) {
+            try {
+                uniqueIndex.add(obj);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Not indexing record " + obj.getId() + " of file " + filePath + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Refuses an object whose unique key values are taken by other objects, before anything is written.
+     */
+    private void checkUniqueKeys(T obj) {
+        if (obj.getUniqueKeys().isEmpty()) return;
+        buildUniqueIndex();
+        uniqueIndex.checkUnique(obj);
+    }
+
+    /**
+     * Forces the changes made to the mapped pages out to the disk.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Flushes the store and closes its file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Encodes an object into its slot, growing the mapping if the slot lies past its end.
+     */
+    private void write(T obj) {
+        int id = obj.getIntId();
+        if (id < 0) {
+            throw new IllegalArgumentException("IDs stored in a mapped file must not be negative: " + id);
+        }
+        writer.reset();
+        codec.encode(obj, writer);
+        if (writer.size() > slotSize - LENGTH_SIZE) {
+            throw new IllegalArgumentException("Object with ID " + id + " takes " + writer.size() +
+                    " bytes, more than the " + (slotSize - LENGTH_SIZE) + " bytes of a slot in " + filePath);
+        }
+        ensureMapped(id);
+        int offset = (int) slotOffset(id);
+        buffer.putInt(offset, 0);
+        buffer.position(offset + LENGTH_SIZE);
+        writer.writeTo(buffer);
+        buffer.putInt(offset, writer.size());
+        if (id > buffer.getInt(HIGH_WATER_MARK_OFFSET)) {
+            buffer.putInt(HIGH_WATER_MARK_OFFSET, id);
+        }
+        attachFriendResolver(obj);
+    }
+
+    /**
+     * @return The length of the record in the slot of the ID, 0 if the slot is empty or not mapped yet.
+     */
+    private int readLength(int id) {
+        long offset = slotOffset(id);
+        if (id < 0 || offset + slotSize > buffer.capacity()) return 0;
+        return buffer.getInt((int) offset);
+    }
+
+    private long slotOffset(int id) {
+        return HEADER_SIZE + (long) id * slotSize;
+    }
+
+    /**
+     * Maps the file up to the slot of the ID, doubling the mapping so the file grows geometrically.
+     */
+    private void ensureMapped(int id) {
+        long required = slotOffset(id) + slotSize;
+        if (required <= buffer.capacity()) return;
+        long size = Math.max(required, 2L * buffer.capacity());
+        size = Math.min(size, Integer.MAX_VALUE);
+        if (required > size) {
+            throw new IllegalArgumentException("ID " + id + " lies past the 2 GiB limit of " + filePath);
+        }
+        try {
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error growing mapped file: " + filePath, e);
+        }
+    }
+
+    /**
+     * Lets a user resolve its friends lazily, through this repository's unique email index.
+     */
+    private void attachFriendResolver(T obj) {
+        if (obj instanceof User user) {
+            user.setFriendResolver(email -> findByUnique("email", email) instanceof User friend ? friend : null);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Parses the lines of a large text file on several threads.
+ * <p>
+ * The file is split into byte ranges that start right after a newline, found by probing a few bytes
+ * at each nominal split point. Each range is read and parsed by its own fork-join task as if it
+ * started a record, and the results are joined back in file order. A record is a line, or several
+ * lines when a quoted field contains line breaks, so a range may in fact start inside a quoted field.
+ * After a newline that is the only other possible state, so every task also scans its range from
+ * inside quotes, noting where the first record would end. The join follows the quoting state from
+ * range to range and re-parses, serially, only the ranges that turn out to start inside a record.
+ * Files without quoted line breaks never need that. Splitting on raw bytes is safe for UTF-8, because
+ * the newline and quote bytes never occur inside a multi-byte character.
+ * </p>
+ */
+class ParallelLineParser {
+
+    private static final int MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int PROBE_SIZE = 8 * 1024;
+
+    private ParallelLineParser() {
+    }
+
+    /**
+     * The records parsed from one range of the file, read as if the range started a record.
+     *
+     * @param results       The non-null results of the complete records, in order.
+     * @param tailStart     The file offset of a record still open at the end of the range, or -1 if there is none.
+     * @param quotedHeadEnd The file offset right after the first record end, had the range started inside
+     *                      a quoted field, or -1 if there would be none.
+     */
+    private record Chunk<R>(List<R> results, long tailStart, long quotedHeadEnd) {
+    }
+
+    /**
+     * Parses every non-empty record of a file.
+     *
+     * @param path   The file to read.
+     * @param parser Turns one record into a result, or null to skip the record. It is called concurrently.
+     * @param <R>    The type of the results.
+     * @return The non-null results, in the order of their records.
+     */
+    static <R> List<R> parse(Path path, Function<String, R> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = splitAtLines(channel, ForkJoinPool.commonPool().getParallelism() * CHUNKS_PER_THREAD);
+            List<Chunk<R>> chunks;
+            try {
+                chunks = ForkJoinPool.commonPool().invoke(new ChunkTask<>(channel, bounds, 0, bounds.length - 1, parser));
+            } catch (UncheckedChunkException e) {
+                throw e.getCause();
+            }
+            return join(channel, bounds, chunks, parser);
+        }
+    }
+
+    /**
+     * Computes the boundaries of the chunks, moving each nominal boundary forward to the start of the next line.
+     * Only a few bytes are read at each boundary.
+     *
+     * @return The start offsets of the chunks followed by the file size.
+     */
+    private static long[] splitAtLines(FileChannel channel, int targetChunks) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / Math.max(targetChunks, 1));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long nominal = chunkSize;
+        while (nominal < size) {
+            long lineStart = nextLineStart(channel, probe, nominal);
+            if (lineStart < 0 || lineStart >= size) break;
+            bounds.add(lineStart);
+            nominal = lineStart + chunkSize;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * @return The offset right after the first newline at or after the given offset, or -1 if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, ByteBuffer probe, long from) throws IOException {
+        long position = from;
+        int read;
+        while ((read = channel.read(probe.clear(), position)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return -1;
+    }
+
+    /**
+     * Joins the chunks in file order, following the quoting state across their boundaries. A chunk that
+     * starts inside a record left open by the chunks before it is re-parsed from the end of that record.
+     */
+    private static <R> List<R> join(FileChannel channel, long[] bounds, List<Chunk<R>> chunks, Function<String, R> parser) throws IOException {
+        long size = bounds[bounds.length - 1];
+        List<R> results = new ArrayList<>();
+        long openRecord = -1;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk<R> chunk = chunks.get(i);
+            long end = bounds[i + 1];
+            if (openRecord < 0) {
+                results.addAll(chunk.results());
+                openRecord = chunk.tailStart();
+            } else if (chunk.quotedHeadEnd() >= 0) {
+                results.addAll(parseRange(channel, openRecord, chunk.quotedHeadEnd(), false, parser).results());
+                Chunk<R> rest = parseRange(channel, chunk.quotedHeadEnd(), end, end == size, parser);
+                results.addAll(rest.results());
+                openRecord = rest.tailStart();
+            }
+        }
+        if (openRecord >= 0) {
+            results.addAll(parseRange(channel, openRecord, size, true, parser).results());
+        }
+        return results;
+    }
+
+    /**
+     * Reads and parses a range of the file that starts a record, without looking at the quoted head.
+     */
+    private static <R> Chunk<R> parseRange(FileChannel channel, long start, long end, boolean last, Function<String, R> parser) throws IOException {
+        return parseChunk(readChunk(channel, start, end), start, last, false, parser);
+    }
+
+    private static byte[] readChunk(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) break;
+        }
+        return buffer.position() == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Parses the records of a chunk that is assumed to start a record.
+     *
+     * @param bytes     The bytes of the chunk.
+     * @param start     The file offset of the chunk.
+     * @param last      Whether the chunk ends the file, so a record still open at its end is parsed as it is.
+     * @param speculate Whether to also find where the first record ends if the chunk starts inside quotes.
+     * @param parser    Turns one record into a result.
+     */
+    private static <R> Chunk<R> parseChunk(byte[] bytes, long start, boolean last, boolean speculate, Function<String, R> parser) {
+        List<R> results = new ArrayList<>();
+        CsvRecordScanner scanner = new CsvRecordScanner();
+        int recordStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (scanner.endsRecord(bytes[i] & 0xFF)) {
+                parseRecord(bytes, recordStart, i, parser, results);
+                recordStart = i + 1;
+            }
+        }
+        long tailStart = -1;
+        if (recordStart < bytes.length) {
+            if (last || !scanner.isInQuotes()) {
+                parseRecord(bytes, recordStart, bytes.length, parser, results);
+            } else {
+                tailStart = start + recordStart;
+            }
+        }
+
+        long quotedHeadEnd = -1;
+        if (speculate) {
+            scanner.resetInsideQuotes();
+            for (int i = 0; i < bytes.length; i++) {
+                if (scanner.endsRecord(bytes[i] & 0xFF)) {
+                    quotedHeadEnd = start + i + 1;
+                    break;
+                }
+            }
+        }
+        return new Chunk<>(results, tailStart, quotedHeadEnd);
+    }
+
+    private static <R> void parseRecord(byte[] bytes, int start, int end, Function<String, R> parser, List<R> results) {
+        int contentEnd = end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+        if (contentEnd > start) {
+            R result = parser.apply(new String(bytes, start, contentEnd - start, StandardCharsets.UTF_8));
+            if (result != null) {
+                results.add(result);
+            }
+        }
+    }
+
+    /**
+     * Carries an I/O failure out of a fork-join task.
+     */
+    private static class UncheckedChunkException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UncheckedChunkException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Parses the chunks from {@code from} (inclusive) to {@code to} (exclusive), splitting in halves
+     * until a single chunk is left. Tasks are never serialized; the channel and the parser are
+     * only marked transient because fork-join tasks are serializable.
+     */
+    private static class ChunkTask<R> extends RecursiveTask<List<Chunk<R>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final transient Function<String, R> parser;
+
+        ChunkTask(FileChannel channel, long[] bounds, int from, int to, Function<String, R> parser) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.parser = parser;
+        }
+
+        @Override
+        protected List<Chunk<R>> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ChunkTask<R> left = new ChunkTask<>(channel, bounds, from, middle, parser);
+                ChunkTask<R> right = new ChunkTask<>(channel, bounds, middle, to, parser);
+                right.fork();
+                List<Chunk<R>> chunks = new ArrayList<>(left.compute());
+                chunks.addAll(right.join());
+                return chunks;
+            }
+            try {
+                boolean last = to == bounds.length - 1;
+                return List.of(parseChunk(readChunk(channel, bounds[from], bounds[to]), bounds[from], last, from > 0, parser));
+            } catch (IOException e) {
+                throw new UncheckedChunkException(e);
+            }
+        }
+    }
+}
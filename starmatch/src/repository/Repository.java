@@ -1,6 +1,14 @@
 package repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import model.HasId;
 
@@ -25,6 +33,34 @@ public interface Repository<T extends HasId> {
      */
     T get(Integer id);
 
+    /**
+     * Retrieves an object from the repository by its primitive ID.
+     * Repositories keyed by primitive ids override it so the lookup does not box the ID.
+     *
+     * @param id The unique identifier of the object to retrieve.
+     * @return The object with the specified ID, or null if not found.
+     */
+    default T get(int id) {
+        return get(Integer.valueOf(id));
+    }
+
+    /**
+     * Finds which of the given IDs belong to stored objects.
+     * The default implementation looks the IDs up one by one; repositories override it with a single query.
+     *
+     * @param ids The IDs to look up.
+     * @return The IDs among them that are stored.
+     */
+    default Set<Integer> findExistingIds(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        for (Integer id : ids) {
+            if (get(id) != null) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
     /**
      * Updates an existing object in the repository.
      *
@@ -39,10 +75,194 @@ public interface Repository<T extends HasId> {
      */
     void delete(Integer id);
 
+    /**
+     * Deletes an object from the repository by its primitive ID.
+     * Repositories keyed by primitive ids override it so the removal does not box the ID.
+     *
+     * @param id The unique identifier of the object to delete.
+     */
+    default void delete(int id) {
+        delete(Integer.valueOf(id));
+    }
+
+    /**
+     * Creates several objects in the repository.
+     * The default implementation creates them one by one; repositories override it to write them in one go.
+     *
+     * @param objs The objects to create.
+     */
+    default void createAll(Collection<T> objs) {
+        objs.forEach(this::create);
+    }
+
+    /**
+     * Updates several existing objects in the repository.
+     * The default implementation updates them one by one; repositories override it to write them in one go.
+     *
+     * @param objs The objects to update.
+     */
+    default void updateAll(Collection<T> objs) {
+        objs.forEach(this::update);
+    }
+
+    /**
+     * Deletes several objects from the repository by their IDs.
+     * The default implementation deletes them one by one; repositories override it to remove them in one go.
+     *
+     * @param ids The unique identifiers of the objects to delete.
+     */
+    default void deleteAll(Collection<Integer> ids) {
+        ids.forEach(this::delete);
+    }
+
+    /**
+     * Starts collecting changes to be applied together with {@link #commit(UnitOfWork)}.
+     *
+     * @return An empty unit of work.
+     */
+    default UnitOfWork<T> beginWork() {
+        return new UnitOfWork<>();
+    }
+
+    /**
+     * Applies the changes of a unit of work in the order they were recorded.
+     * The default implementation applies them one by one; repositories override it to apply them
+     * in a single storage commit.
+     *
+     * @param work The changes to apply.
+     */
+    default void commit(UnitOfWork<T> work) {
+        for (UnitOfWork.Change<T> change : work.getChanges()) {
+            switch (change.operation()) {
+                case CREATE -> create(change.obj());
+                case UPDATE -> update(change.obj());
+                case DELETE -> delete(change.id());
+            }
+        }
+    }
+
+    /**
+     * Allocates a new, unused ID for an object that is about to be created.
+     *
+     * @return The allocated ID.
+     */
+    default int nextId() {
+        return reserveIds(1);
+    }
+
+    /**
+     * Allocates a block of consecutive, unused IDs for objects that are about to be created in bulk.
+     * The default implementation scans for the current maximum ID; repositories override it with an
+     * {@link IdSequence} so allocation costs O(1) and is safe under concurrent use.
+     *
+     * @param count The number of IDs to allocate.
+     * @return The first ID of the block; the block ends at {@code first + count - 1}.
+     */
+    default int reserveIds(int count) {
+        try (Stream<T> objects = stream()) {
+            return objects.mapToInt(HasId::getId).max().orElse(0) + 1;
+        }
+    }
+
     /**
      * Retrieves all objects from the repository.
      *
      * @return A list of all objects in the repository.
      */
     List<T> getAll();
+
+    /**
+     * Returns a lazy stream over all objects in the repository.
+     * <p>
+     * Unlike {@link #getAll()}, repositories may produce the objects on demand (for example from an open
+     * file or result set), so a scan that stops early with {@code findFirst} or {@code anyMatch} does not
+     * have to load every object. The stream may hold resources and should be closed, preferably with
+     * try-with-resources. The repository must not be modified while the stream is being consumed.
+     * </p>
+     *
+     * @return A stream of all objects in the repository.
+     */
+    default Stream<T> stream() {
+        return getAll().stream();
+    }
+
+    /**
+     * Retrieves an object from the repository by the value of one of its unique keys,
+     * as declared by {@link HasId#getUniqueKeys()}.
+     * The default implementation scans all objects; repositories override it with an index.
+     *
+     * @param field The name of the unique key, e.g. "email".
+     * @param value The value of the key to look up.
+     * @return The object with the specified key value, or null if not found.
+     */
+    default T findByUnique(String field, Object value) {
+        if (value == null) return null;
+        return getAll().stream()
+                .filter(obj -> Objects.equals(obj.getUniqueKeys().get(field), value))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Retrieves the objects whose searchable field, as declared by {@link HasId#getIndexedFields()},
+     * has the given value.
+     * The default implementation scans all objects; database repositories query the column's index.
+     *
+     * @param field The name of the field, e.g. "birthPlace".
+     * @param value The value to look for.
+     * @return A new list of the matching objects, empty if there are none or the value is null.
+     */
+    default List<T> findBy(String field, Object value) {
+        if (value == null) return new ArrayList<>();
+        try (Stream<T> objects = stream()) {
+            return objects.filter(obj -> Objects.equals(obj.getIndexedFields().get(field), value))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Retrieves the objects whose searchable field lies in a half-open range.
+     * The default implementation scans all objects; database repositories query the column's index.
+     *
+     * @param field The name of the field, e.g. "birthDate".
+     * @param from  The lowest value included.
+     * @param to    The lowest value excluded.
+     * @param <V>   The type of the field.
+     * @return A new list of the objects whose field is at least {@code from} and below {@code to}.
+     */
+    default <V extends Comparable<? super V>> List<T> findInRange(String field, V from, V to) {
+        try (Stream<T> objects = stream()) {
+            return objects.filter(obj -> {
+                Object value = obj.getIndexedFields().get(field);
+                if (!from.getClass().isInstance(value)) return false;
+                @SuppressWarnings("unchecked")
+                V typed = (V) value;
+                return typed.compareTo(from) >= 0 && typed.compareTo(to) < 0;
+            }).collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Retrieves all objects ordered by one of their searchable fields, in the order the database sorts
+     * the stored column: enum constants by name, missing values first. The order of objects with equal
+     * values is unspecified.
+     * The default implementation sorts all objects; database repositories read the column's index in order.
+     *
+     * @param field The name of the field, e.g. "element".
+     * @return A new list of all objects, ordered by the field.
+     */
+    default List<T> getAllOrderedBy(String field) {
+        List<T> objects = new ArrayList<>(getAll());
+        objects.sort(Comparator.comparing(obj -> sortKey(obj.getIndexedFields().get(field)),
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return objects;
+    }
+
+    /**
+     * @return The value a field is ordered by: the name of an enum constant, the value itself otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> sortKey(Object value) {
+        return (Comparable<Object>) (value instanceof Enum<?> constant ? constant.name() : value);
+    }
 }
\ No newline at end of file
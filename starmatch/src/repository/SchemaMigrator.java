@@ -0,0 +1,120 @@
+package repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings a SQLite database up to the schema the repositories expect.
+ * <p>
+ * The database records the version of the last migration applied to it in {@code PRAGMA user_version}.
+ * On startup every newer migration is run, in order, and the version is advanced after each one.
+ * The first migration runs {@code utils/SQLTables.sql}, read from the classpath, which is the one
+ * definition of the tables. It creates them with {@code IF NOT EXISTS}, so databases created from
+ * that script before versioning existed are picked up as they are.
+ * </p>
+ */
+public final class SchemaMigrator {
+
+    /**
+     * One schema change, applied as a whole.
+     *
+     * @param version     The version the database is at after the migration.
+     * @param description What the migration does.
+     * @param statements  The SQL statements of the migration, or null for the tables script.
+     */
+    private record Migration(int version, String description, List<String> statements) {
+    }
+
+    private static final String TABLES_SCRIPT = "/utils/SQLTables.sql";
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create tables", null),
+            new Migration(2, "Add secondary indexes", List.of(
+                    // Repository.findBy and findInRange on users, for getFriendsNearMe and filterUsersByYear
+                    "CREATE INDEX IF NOT EXISTS idx_user_birth_place ON User (birth_place)",
+                    "CREATE INDEX IF NOT EXISTS idx_user_birth_date ON User (birth_date)",
+                    // covering indexes for filterQuotesByElement and the element order of getTraits
+                    "CREATE INDEX IF NOT EXISTS idx_quote_element ON Quote (element, quote_text)",
+                    "CREATE INDEX IF NOT EXISTS idx_trait_element ON Trait (element, trait_name)",
+                    // reverse lookups of the link tables, used by cascading deletes and trait removal
+                    "CREATE INDEX IF NOT EXISTS idx_user_friends_friend ON User_Friends (friend_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_starsign_trait_trait ON StarSign_Trait (trait_id)")),
+            new Migration(3, "Index compatibilities by friend", List.of(
+                    // the primary key serves lookups by user_id; this one serves a user's pairs as friend
+                    "CREATE INDEX IF NOT EXISTS idx_compatibility_friend ON Compatibility (friend_id)"))
+    );
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * @return The version of the newest migration.
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.getLast().version();
+    }
+
+    /**
+     * Applies every migration newer than the database's version. The caller is responsible for
+     * running it inside a transaction, so a failed migration leaves the database untouched.
+     *
+     * @param connection A writable connection to the database.
+     * @return The version of the database after migrating.
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        int current = currentVersion(connection);
+        try (Statement statement = connection.createStatement()) {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= current) continue;
+                List<String> statements = migration.statements() != null ? migration.statements() : readTablesScript();
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+                statement.execute("PRAGMA user_version = " + migration.version());
+                current = migration.version();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * @return The version recorded in the database, 0 for a database that was never migrated.
+     */
+    public static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Reads the statements of the tables script, dropping its comments.
+     *
+     * @return The statements of the script, without their terminating semicolons.
+     * @throws SQLException If the script is missing from the classpath or cannot be read.
+     */
+    private static List<String> readTablesScript() throws SQLException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(TABLES_SCRIPT)) {
+            if (in == null) {
+                throw new SQLException("Schema script not found on the classpath: " + TABLES_SCRIPT);
+            }
+            String script = new String(in.readAllBytes(), StandardCharsets.UTF_8).replaceAll("--[^\\n]*", "");
+            List<String> statements = new ArrayList<>();
+            for (String statement : script.split(";")) {
+                if (!statement.isBlank()) {
+                    statements.add(statement.strip());
+                }
+            }
+            return statements;
+        } catch (IOException e) {
+            throw new SQLException("Error reading schema script: " + TABLES_SCRIPT, e);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import model.HasId;
+import model.User;
+
+/**
+ * Base class of the repositories that keep the contents of a data file as a resident snapshot.
+ * <p>
+ * The snapshot is loaded on first use and reloaded whenever the file changes on disk or the snapshot
+ * is invalidated. A write applies its changes to the snapshot in place and rewrites the file; if the
+ * file cannot be written, the snapshot and its index are discarded. Subclasses decide how the file is
+ * encoded by implementing {@link #readDataFromFile()} and {@link #writeDataToFile(Map)}.
+ * </p>
+ * <p>
+ * Next to the data, the snapshot keeps a hash index of the unique keys, and users loaded or written
+ * get a friend resolver that looks their friends up through that index. A write that would give a
+ * unique key value to a second object is refused as a whole, with an {@link IllegalArgumentException}.
+ * </p>
+ *
+ * @param <T> The type of objects stored, which must implement HasId.
+ */
+public abstract class SnapshotFileRepository<T extends HasId> implements Repository<T> {
+    private static final String SEQUENCE_SUFFIX = ".seq";
+
+    protected final String filePath;
+    private final String sequencePath;
+    private IdSequence idSequence;
+
+    private Map<Integer, T> snapshot;
+    private final UniqueIndex<T> uniqueIndex = new UniqueIndex<>();
+    private FileStamp snapshotStamp;
+    private long snapshotVersion;
+    private long version;
+
+    /**
+     * The modification time and size of the data file and of a log next to it, used to detect
+     * changes made to the files outside of this repository. Repositories without a log leave
+     * the log fields at 0.
+     */
+    protected record FileStamp(long modified, long size, long logModified, long logSize) {
+    }
+
+    /**
+     * @param filePath The path to the file where data will be stored.
+     */
+    protected SnapshotFileRepository(String filePath) {
+        this.filePath = filePath;
+        this.sequencePath = filePath + SEQUENCE_SUFFIX;
+    }
+
+    /**
+     * Reads the whole data file.
+     *
+     * @return The data stored in the file, keyed by id, or an empty map if the file is empty or does not exist.
+     */
+    protected abstract Map<Integer, T> readDataFromFile();
+
+    /**
+     * Rewrites the data file with the given data.
+     *
+     * @param data The data to write to the file.
+     * @return true if the file was written.
+     */
+    protected abstract boolean writeDataToFile(Map<Integer, T> data);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void create(T obj) {
+        doInFile(data -> putIfAbsent(data, obj));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized T get(Integer id) {
+        return loadSnapshot().get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(T obj) {
+        doInFile(data -> replace(data, obj));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Integer id) {
+        doInFile(data -> remove(data, id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized List<T> getAll() {
+        return new ArrayList<>(loadSnapshot().values());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Streams the resident snapshot without copying it.
+     * </p>
+     */
+    @Override
+    public synchronized Stream<T> stream() {
+        return loadSnapshot().values().stream();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The lookup uses a hash index that is built together with the snapshot and kept up to date by every write.
+     * </p>
+     */
+    @Override
+    public synchronized T findByUnique(String field, Object value) {
+        loadSnapshot();
+        return uniqueIndex.get(field, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All objects are written with a single file rewrite.
+     * </p>
+     */
+    @Override
+    public void createAll(Collection<T> objs) {
+        doInFile(data -> objs.forEach(obj -> putIfAbsent(data, obj)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All objects are written with a single file rewrite.
+     * </p>
+     */
+    @Override
+    public void updateAll(Collection<T> objs) {
+        doInFile(data -> objs.forEach(obj -> replace(data, obj)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All objects are removed with a single file rewrite.
+     * </p>
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        doInFile(data -> ids.forEach(id -> remove(data, id)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All changes are written with a single file rewrite.
+     * </p>
+     */
+    @Override
+    public void commit(UnitOfWork<T> work) {
+        if (work.isEmpty()) return;
+        doInFile(data -> work.getChanges().forEach(change -> apply(data, change)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The high-water mark of the sequence is persisted next to the data file ({@code filePath + ".seq"}),
+     * so IDs of deleted objects are not handed out again after a restart.
+     * </p>
+     */
+    @Override
+    public synchronized int reserveIds(int count) {
+        if (idSequence == null) {
+            idSequence = new IdSequence(readSequenceFile());
+            loadSnapshot().keySet().forEach(idSequence::observe);
+        }
+        int first = idSequence.nextBlock(count);
+        writeSequenceFile(idSequence.getHighWaterMark());
+        return first;
+    }
+
+    /**
+     * Discards the in-memory snapshot, so the next read loads the file again.
+     */
+    public synchronized void invalidate() {
+        version++;
+    }
+
+    /**
+     * Performs an operation on the data stored in the file.
+     * The operation is applied to the snapshot in place, and the file is rewritten from it. If the write
+     * fails, the snapshot and the unique index are discarded, so the next read reloads the file instead
+     * of serving data that never reached the disk.
+     *
+     * @param function The function to apply to the data.
+     */
+    protected synchronized void doInFile(Consumer<Map<Integer, T>> function) {
+        Map<Integer, T> data = loadSnapshot();
+        applyToSnapshot(data, function);
+        if (!writeDataToFile(data)) {
+            discardSnapshot();
+            return;
+        }
+        snapshotStamp = currentStamp();
+    }
+
+    /**
+     * Applies an operation to the loaded snapshot. If the operation fails part way, for example because
+     * it was refused by the unique index, the snapshot is discarded so none of its changes survive.
+     *
+     * @param data     The loaded snapshot.
+     * @param function The function to apply to the data.
+     */
+    protected synchronized void applyToSnapshot(Map<Integer, T> data, Consumer<Map<Integer, T>> function) {
+        try {
+            function.accept(data);
+        } catch (RuntimeException e) {
+            discardSnapshot();
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the snapshot and its unique index, so the next read reloads them from the files.
+     */
+    protected synchronized void discardSnapshot() {
+        snapshot = null;
+        uniqueIndex.clear();
+    }
+
+    /**
+     * Returns the contents of the file, reloading them only if the files changed on disk
+     * or the snapshot was invalidated since the last load.
+     *
+     * @return The resident snapshot of the data, keyed by id.
+     */
+    protected synchronized Map<Integer, T> loadSnapshot() {
+        FileStamp stamp = currentStamp();
+        if (snapshot == null || snapshotVersion != version || !stamp.equals(snapshotStamp)) {
+            snapshot = readDataFromFile();
+            uniqueIndex.clear();
+            for (T obj : snapshot.values()) {
+                try {
+                    uniqueIndex.add(obj);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Not indexing record " + obj.getId() + " of file " + filePath + ": " + e.getMessage());
+                }
+            }
+            snapshotStamp = stamp;
+            snapshotVersion = version;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return true if the snapshot is loaded and neither the files nor the repository changed since.
+     */
+    protected synchronized boolean isSnapshotCurrent() {
+        return snapshot != null && snapshotVersion == version && currentStamp().equals(snapshotStamp);
+    }
+
+    /**
+     * Records that the snapshot matches the files as they are now, after this repository changed
+     * them and applied the same changes to the snapshot in place.
+     */
+    protected synchronized void markSnapshotCurrent() {
+        snapshotStamp = currentStamp();
+    }
+
+    /**
+     * @return The current modification time and size of the data file.
+     */
+    protected FileStamp currentStamp() {
+        File file = new File(filePath);
+        return new FileStamp(file.lastModified(), file.length(), 0, 0);
+    }
+
+    /**
+     * Adds an object to the data if its id is not taken yet, linking its friends when it is a user.
+     */
+    protected void putIfAbsent(Map<Integer, T> data, T obj) {
+        if (data.containsKey(obj.getId())) return;
+        uniqueIndex.add(obj);
+        data.put(obj.getId(), obj);
+        if (idSequence != null) idSequence.observe(obj.getId());
+        attachFriendResolver(obj);
+    }
+
+    /**
+     * Replaces an object in the data if its id exists, linking its friends when it is a user.
+     */
+    protected void replace(Map<Integer, T> data, T obj) {
+        if (!data.containsKey(obj.getId())) return;
+        uniqueIndex.add(obj);
+        data.put(obj.getId(), obj);
+        attachFriendResolver(obj);
+    }
+
+    /**
+     * Removes an object from the data and from the unique index.
+     */
+    protected void remove(Map<Integer, T> data, Integer id) {
+        data.remove(id);
+        uniqueIndex.remove(id);
+    }
+
+    /**
+     * Applies one change of a unit of work to the data.
+     */
+    protected void apply(Map<Integer, T> data, UnitOfWork.Change<T> change) {
+        switch (change.operation()) {
+            case CREATE -> putIfAbsent(data, change.obj());
+            case UPDATE -> replace(data, change.obj());
+            case DELETE -> remove(data, change.id());
+        }
+    }
+
+    /**
+     * Lets a user resolve its friends lazily, through this repository's unique email index.
+     * Nothing is looked up until the user's friends are first accessed.
+     *
+     * @param obj The loaded or written object.
+     */
+    protected void attachFriendResolver(T obj) {
+        if (obj instanceof User user) {
+            user.setFriendResolver(this::findFriend);
+        }
+    }
+
+    /**
+     * @return The user with the given email, or null if there is none.
+     */
+    private User findFriend(String email) {
+        return findByUnique("email", email) instanceof User friend ? friend : null;
+    }
+
+    /**
+     * @return The high-water mark stored in the sequence file, or 0 if there is none.
+     */
+    private int readSequenceFile() {
+        Path path = Paths.get(sequencePath);
+        if (!Files.exists(path)) return 0;
+        try {
+            return Integer.parseInt(Files.readString(path).trim());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading id sequence: " + sequencePath);
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Persists the high-water mark of the id sequence.
+     *
+     * @param highWaterMark The highest id handed out so far.
+     */
+    private void writeSequenceFile(int highWaterMark) {
+        try {
+            Files.writeString(Paths.get(sequencePath), Integer.toString(highWaterMark));
+        } catch (IOException e) {
+            System.err.println("Error writing id sequence: " + sequencePath);
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.HasId;
+
+/**
+ * A hash index over the unique keys of the objects in a repository (see {@link HasId#getUniqueKeys()}).
+ * <p>
+ * The index remembers the key values each object was indexed under, so it can be updated correctly
+ * even when the object was modified in place before being re-indexed. Lookups never block, and the
+ * index is safe for concurrent use as long as writes for the same id are not interleaved.
+ * </p>
+ * <p>
+ * Like a {@code UNIQUE} constraint, the index refuses an object whose key value already belongs to an
+ * object with a different id. Repositories add an object to the index before storing it, so a refused
+ * write leaves the repository unchanged.
+ * </p>
+ *
+ * @param <T> The type of objects indexed, which must implement HasId.
+ */
+public class UniqueIndex<T extends HasId> {
+    private final Map<String, Map<Object, T>> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<String, Object>> keysById = new ConcurrentHashMap<>();
+
+    /**
+     * Adds an object to the index, replacing the entries it was previously indexed under.
+     *
+     * @param obj The object to index.
+     * @throws IllegalArgumentException If a key value of the object belongs to an object with a different id.
+     *                                  The index is left unchanged.
+     */
+    public void add(T obj) {
+        Map<String, Object> uniqueKeys = obj.getUniqueKeys();
+        if (uniqueKeys.isEmpty() && keysById.isEmpty()) return;
+
+        checkUnique(obj);
+        remove(obj.getId());
+        Map<String, Object> keys = new HashMap<>();
+        uniqueKeys.forEach((field, value) -> {
+            if (value != null) {
+                entries.computeIfAbsent(field, f -> new ConcurrentHashMap<>()).put(value, obj);
+                keys.put(field, value);
+            }
+        });
+        keysById.put(obj.getId(), keys);
+    }
+
+    /**
+     * Checks that no object with a different id holds one of the key values of an object.
+     *
+     * @param obj The object about to be stored.
+     * @throws IllegalArgumentException If a key value of the object belongs to an object with a different id.
+     */
+    public void checkUnique(T obj) {
+        obj.getUniqueKeys().forEach((field, value) -> {
+            T indexed = get(field, value);
+            if (indexed != null && !indexed.getId().equals(obj.getId())) {
+                throw new IllegalArgumentException("Duplicate value for unique key " + field + ": " + value);
+            }
+        });
+    }
+
+    /**
+     * Removes the entries of the object with the given id from the index.
+     *
+     * @param id The id of the object to remove.
+     */
+    public void remove(Integer id) {
+        if (keysById.isEmpty()) return;
+        Map<String, Object> keys = keysById.remove(id);
+        if (keys == null) return;
+        keys.forEach((field, value) -> {
+            Map<Object, T> values = entries.get(field);
+            T indexed = values.get(value);
+            if (indexed != null && indexed.getId().equals(id)) {
+                values.remove(value, indexed);
+            }
+        });
+    }
+
+    /**
+     * Looks up an object by the value of one of its unique keys.
+     *
+     * @param field The name of the unique key.
+     * @param value The value to look up.
+     * @return The indexed object, or null if none has that value.
+     */
+    public T get(String field, Object value) {
+        if (value == null) return null;
+        Map<Object, T> values = entries.get(field);
+        return values == null ? null : values.get(value);
+    }
+
+    /**
+     * Removes all entries from the index.
+     */
+    public void clear() {
+        entries.clear();
+        keysById.clear();
+    }
+}
@@ -0,0 +1,82 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import model.HasId;
+
+/**
+ * An ordered set of changes to one repository that are applied together by
+ * {@link Repository#commit(UnitOfWork)}.
+ * <p>
+ * Changes are only recorded here; nothing is written until the work is committed.
+ * Repositories that can, apply all changes in a single storage commit, so they either
+ * all become visible or none do.
+ * </p>
+ *
+ * @param <T> The type of objects changed, which must implement HasId.
+ */
+public class UnitOfWork<T extends HasId> {
+
+    /**
+     * The kind of a recorded change.
+     */
+    public enum Operation { CREATE, UPDATE, DELETE }
+
+    /**
+     * One recorded change. The object is null for deletes.
+     *
+     * @param operation The kind of change.
+     * @param id        The ID of the object changed.
+     * @param obj       The object to create or update.
+     */
+    public record Change<T>(Operation operation, Integer id, T obj) {
+    }
+
+    private final List<Change<T>> changes = new ArrayList<>();
+
+    /**
+     * Records the creation of an object.
+     *
+     * @return This unit of work.
+     */
+    public UnitOfWork<T> create(T obj) {
+        changes.add(new Change<>(Operation.CREATE, obj.getId(), obj));
+        return this;
+    }
+
+    /**
+     * Records the update of an object.
+     *
+     * @return This unit of work.
+     */
+    public UnitOfWork<T> update(T obj) {
+        changes.add(new Change<>(Operation.UPDATE, obj.getId(), obj));
+        return this;
+    }
+
+    /**
+     * Records the deletion of an object.
+     *
+     * @return This unit of work.
+     */
+    public UnitOfWork<T> delete(Integer id) {
+        changes.add(new Change<>(Operation.DELETE, id, null));
+        return this;
+    }
+
+    /**
+     * @return The recorded changes, in the order they were made.
+     */
+    public List<Change<T>> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * @return true if no change was recorded.
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+}
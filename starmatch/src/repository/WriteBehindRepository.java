@@ -0,0 +1,442 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import model.HasId;
+import repository.UnitOfWork.Operation;
+
+/**
+ * A repository wrapper that acknowledges writes in memory and applies them to another
+ * repository later, in batches.
+ * <p>
+ * Pending writes are kept per id, so repeated writes to the same object are merged into one:
+ * an update of a pending create stays a create, a delete of a pending create cancels it, and
+ * only the latest state is written. The queue is flushed when it reaches the batch size, every
+ * flush interval on a background thread, and on {@link #flush()} or {@link #close()}. A flush
+ * hands the whole batch to the underlying repository as one {@link UnitOfWork}, so a file
+ * repository rewrites its file once and a database repository commits once per batch.
+ * </p>
+ * <p>
+ * Writes never read the underlying repository. Whether a create or an update takes effect is
+ * decided when its batch is flushed: a create of an id that is already stored and an update of
+ * an id that is not stored are dropped then, as they would have been if written directly.
+ * Until the flush, reads see the pending writes. Creating an object whose id has a pending
+ * delete flushes the queue first, so the delete and the create reach the storage in order.
+ * The flush latency, the size of the last batch and the queue depth are exposed through getters.
+ * </p>
+ * <p>
+ * If the underlying repository refuses a batch, its writes are applied one by one to find the
+ * ones that fail. Those are dropped and kept as dead letters (see {@link #getDeadLetters()}); the
+ * rest of the batch is written. The failure is reported to the thread that made the failed write:
+ * it is thrown by the flush if that thread ran it, and otherwise by the thread's next write or
+ * flush, which then has no other effect. Other callers never see it.
+ * </p>
+ *
+ * @param <T> The type of objects stored in the repository, which must implement HasId.
+ */
+public final class WriteBehindRepository<T extends HasId> implements Repository<T>, AutoCloseable {
+
+    /**
+     * A write waiting to be applied; the object is null for deletes.
+     */
+    private record PendingWrite<T>(Operation operation, T obj, Thread writer) {
+        PendingWrite(Operation operation, T obj) {
+            this(operation, obj, Thread.currentThread());
+        }
+    }
+
+    /**
+     * A write the underlying repository refused, with the exception it failed with.
+     *
+     * @param change The refused write.
+     * @param error  The exception thrown when the write was applied on its own.
+     */
+    public record FailedWrite<T>(UnitOfWork.Change<T> change, RuntimeException error) {
+    }
+
+    private final Repository<T> delegate;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+    private ScheduledExecutorService flushExecutor;
+    private boolean closed;
+    private final Object flushLock = new Object();
+
+    private Map<Integer, PendingWrite<T>> pending = new LinkedHashMap<>();
+    private Map<Integer, PendingWrite<T>> inFlight = Map.of();
+    private final List<FailedWrite<T>> deadLetters = new ArrayList<>();
+    private final Map<Thread, RuntimeException> unreportedFailures = new WeakHashMap<>();
+
+    private volatile long lastFlushNanos;
+    private volatile int lastBatchSize;
+    private volatile long flushCount;
+
+    /**
+     * @param delegate            The repository the writes are applied to.
+     * @param maxBatchSize        The queue depth that triggers a flush.
+     * @param flushIntervalMillis The time between background flushes, or 0 to flush only on size and on demand.
+     *                            The background flushes start with the first write.
+     */
+    public WriteBehindRepository(Repository<T> delegate, int maxBatchSize, long flushIntervalMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void create(T obj) {
+        reportFailure();
+        Integer id = obj.getId();
+        while (true) {
+            synchronized (this) {
+                PendingWrite<T> queued = findPending(id);
+                if (queued == null) {
+                    startBackgroundFlushes();
+                    pending.put(id, new PendingWrite<>(Operation.CREATE, obj));
+                    break;
+                }
+                if (queued.operation() != Operation.DELETE) return;
+            }
+            flush();
+        }
+        flushIfFull();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get(Integer id) {
+        synchronized (this) {
+            PendingWrite<T> queued = findPending(id);
+            if (queued != null) {
+                return queued.obj();
+            }
+        }
+        return delegate.get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(T obj) {
+        reportFailure();
+        Integer id = obj.getId();
+        synchronized (this) {
+            PendingWrite<T> queued = findPending(id);
+            if (queued != null && queued.operation() == Operation.DELETE) return;
+            startBackgroundFlushes();
+            PendingWrite<T> own = pending.get(id);
+            Operation operation = own != null && own.operation() == Operation.CREATE ? Operation.CREATE : Operation.UPDATE;
+            pending.put(id, new PendingWrite<>(operation, obj));
+        }
+        flushIfFull();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Integer id) {
+        reportFailure();
+        synchronized (this) {
+            PendingWrite<T> own = pending.get(id);
+            if (own != null && own.operation() == Operation.CREATE) {
+                pending.remove(id);
+                return;
+            }
+            startBackgroundFlushes();
+            pending.put(id, new PendingWrite<>(Operation.DELETE, null));
+        }
+        flushIfFull();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int reserveIds(int count) {
+        return delegate.reserveIds(count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> getAll() {
+        Map<Integer, PendingWrite<T>> overlay = overlay();
+        if (overlay.isEmpty()) {
+            return delegate.getAll();
+        }
+        Map<Integer, T> merged = new LinkedHashMap<>();
+        for (T obj : delegate.getAll()) {
+            merged.put(obj.getId(), obj);
+        }
+        overlay.forEach((id, queued) -> {
+            if (queued.operation() == Operation.DELETE) {
+                merged.remove(id);
+            } else {
+                merged.put(id, queued.obj());
+            }
+        });
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Streams the underlying repository directly while nothing is pending.
+     * </p>
+     */
+    @Override
+    public Stream<T> stream() {
+        synchronized (this) {
+            if (pending.isEmpty() && inFlight.isEmpty()) {
+                return delegate.stream();
+            }
+        }
+        return getAll().stream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T findByUnique(String field, Object value) {
+        if (value == null) return null;
+        Map<Integer, PendingWrite<T>> overlay = overlay();
+        for (PendingWrite<T> queued : overlay.values()) {
+            if (queued.obj() != null && Objects.equals(queued.obj().getUniqueKeys().get(field), value)) {
+                return queued.obj();
+            }
+        }
+        T stored = delegate.findByUnique(field, value);
+        return stored == null || overlay.containsKey(stored.getId()) ? null : stored;
+    }
+
+    /**
+     * Applies all pending writes to the underlying repository, waiting for a flush that is
+     * already running. If the underlying repository refuses some of the writes, the others are
+     * still applied, and the failure of a write made by the calling thread is thrown.
+     *
+     * @throws RuntimeException If a write made by the calling thread was refused, in this flush
+     *                          or in an earlier one run by another thread.
+     */
+    public void flush() {
+        reportFailure();
+        synchronized (flushLock) {
+            Map<Integer, PendingWrite<T>> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) return;
+                batch = pending;
+                inFlight = batch;
+                pending = new LinkedHashMap<>();
+            }
+
+            long start = System.nanoTime();
+            int applied = batch.size();
+            try {
+                apply(batch);
+            } catch (RuntimeException e) {
+                applied -= applyOneByOne(batch);
+            } finally {
+                synchronized (this) {
+                    inFlight = Map.of();
+                }
+            }
+            lastFlushNanos = System.nanoTime() - start;
+            lastBatchSize = applied;
+            flushCount++;
+        }
+        reportFailure();
+    }
+
+    /**
+     * @return The writes dropped because the underlying repository refused them, oldest first.
+     */
+    public synchronized List<FailedWrite<T>> getDeadLetters() {
+        return List.copyOf(deadLetters);
+    }
+
+    /**
+     * @return The number of writes waiting to be flushed.
+     */
+    public synchronized int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * @return How long the last successful flush took, in nanoseconds.
+     */
+    public long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    /**
+     * @return The number of writes applied by the last successful flush.
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * @return The number of successful flushes so far.
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * Stops the background flushes and flushes what is still pending.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (flushExecutor != null) {
+                flushExecutor.shutdown();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Starts the background flushes, once, if an interval was given. Called with the first write
+     * rather than from the constructor, so the flush thread never sees a partly constructed object.
+     */
+    private synchronized void startBackgroundFlushes() {
+        if (flushExecutor != null || closed || flushIntervalMillis <= 0) return;
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes one batch to the underlying repository in a single commit. Deletes go first so that
+     * unique values they free can be taken by the updates and creates of the same batch.
+     * Creates of ids that are already stored are dropped here, off the write path, after one bulk
+     * lookup of the created ids; updates of ids that are not stored are no-ops in every repository.
+     */
+    private void apply(Map<Integer, PendingWrite<T>> batch) {
+        List<Integer> created = new ArrayList<>();
+        batch.forEach((id, queued) -> {
+            if (queued.operation() == Operation.CREATE) created.add(id);
+        });
+        Set<Integer> stored = created.isEmpty() ? Set.of() : delegate.findExistingIds(created);
+        UnitOfWork<T> work = delegate.beginWork();
+        forEachInApplyOrder(batch, (id, queued) -> {
+            switch (queued.operation()) {
+                case DELETE -> work.delete(id);
+                case UPDATE -> work.update(queued.obj());
+                case CREATE -> {
+                    if (!stored.contains(id)) work.create(queued.obj());
+                }
+            }
+        });
+        delegate.commit(work);
+    }
+
+    /**
+     * Applies the writes of a refused batch one at a time, in the same order. Writes that fail are
+     * dropped to the dead letters, and their failure is kept for the thread that made them.
+     *
+     * @return The number of writes that failed.
+     */
+    private int applyOneByOne(Map<Integer, PendingWrite<T>> batch) {
+        List<FailedWrite<T>> failed = new ArrayList<>();
+        forEachInApplyOrder(batch, (id, queued) -> {
+            try {
+                apply(Map.of(id, queued));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    FailedWrite<T> failure = new FailedWrite<>(new UnitOfWork.Change<>(queued.operation(), id, queued.obj()), e);
+                    deadLetters.add(failure);
+                    failed.add(failure);
+                    RuntimeException earlier = unreportedFailures.putIfAbsent(queued.writer(), e);
+                    if (earlier != null && earlier != e) earlier.addSuppressed(e);
+                }
+            }
+        });
+        return failed.size();
+    }
+
+    /**
+     * Visits the writes of a batch with the deletes first, then the updates, then the creates.
+     */
+    private static <T> void forEachInApplyOrder(Map<Integer, PendingWrite<T>> batch, BiConsumer<Integer, PendingWrite<T>> action) {
+        for (Operation operation : List.of(Operation.DELETE, Operation.UPDATE, Operation.CREATE)) {
+            batch.forEach((id, queued) -> {
+                if (queued.operation() == operation) action.accept(id, queued);
+            });
+        }
+    }
+
+    /**
+     * Throws the failure of an earlier write of the calling thread, once, if there is one.
+     */
+    private void reportFailure() {
+        RuntimeException failure;
+        synchronized (this) {
+            failure = unreportedFailures.remove(Thread.currentThread());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void flushIfFull() {
+        if (getQueueDepth() >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Error flushing pending writes");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return The newest pending write for an id, or null if there is none.
+     */
+    private PendingWrite<T> findPending(Integer id) {
+        PendingWrite<T> queued = pending.get(id);
+        return queued != null ? queued : inFlight.get(id);
+    }
+
+    /**
+     * @return A copy of the writes not yet visible in the underlying repository, newest last.
+     */
+    private synchronized Map<Integer, PendingWrite<T>> overlay() {
+        if (pending.isEmpty() && inFlight.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, PendingWrite<T>> overlay = new LinkedHashMap<>(inFlight);
+        overlay.putAll(pending);
+        return overlay;
+    }
+}
@@ -0,0 +1,32 @@
+package repository.codec;
+
+import model.Admin;
+
+/**
+ * Binary codec for {@link Admin}.
+ */
+public class AdminBinaryCodec implements BinaryCodec<Admin> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void encode(Admin admin, BinaryWriter out) {
+        out.writeVarInt(admin.getIntId());
+        out.writeString(admin.getName());
+        out.writeString(admin.getEmail());
+        out.writeString(admin.getPassword());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Admin decode(BinaryReader in) {
+        int id = in.readVarInt();
+        String name = in.readString();
+        String email = in.readString();
+        String password = in.readString();
+        return new Admin(id, name, email, password);
+    }
+}
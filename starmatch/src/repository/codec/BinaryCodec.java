@@ -0,0 +1,66 @@
+package repository.codec;
+
+import model.HasId;
+
+/**
+ * Encodes objects of one entity type to a compact binary record and decodes them back.
+ * <p>
+ * A codec writes only the fields of the object, in a fixed order; the length of the record and
+ * its position in a file are the business of the store using it. A store that encodes all objects
+ * of a file together passes a {@link ReferenceTable}, so codecs can store references between the
+ * objects as IDs; by default the table is ignored.
+ * </p>
+ *
+ * @param <T> The type of objects encoded, which must implement HasId.
+ */
+public interface BinaryCodec<T extends HasId> {
+
+    /**
+     * Writes the fields of an object.
+     *
+     * @param obj The object to encode.
+     * @param out The writer receiving the fields.
+     */
+    void encode(T obj, BinaryWriter out);
+
+    /**
+     * Reads the fields written by {@link #encode(HasId, BinaryWriter)} and builds the object.
+     *
+     * @param in The reader positioned at the start of the record.
+     * @return The decoded object.
+     */
+    T decode(BinaryReader in);
+
+    /**
+     * Records the keys other objects refer to an object by. Called for every object of a file before
+     * any of them is encoded with {@link #encode(HasId, BinaryWriter, ReferenceTable)}.
+     *
+     * @param obj        The object about to be encoded.
+     * @param references The table of the file.
+     */
+    default void index(T obj, ReferenceTable references) {
+    }
+
+    /**
+     * Writes the fields of an object, storing its references to other objects of the file as IDs.
+     *
+     * @param obj        The object to encode.
+     * @param out        The writer receiving the fields.
+     * @param references The table of the file, filled by {@link #index(HasId, ReferenceTable)}.
+     */
+    default void encode(T obj, BinaryWriter out, ReferenceTable references) {
+        encode(obj, out);
+    }
+
+    /**
+     * Reads the fields written by {@link #encode(HasId, BinaryWriter, ReferenceTable)} and builds the object.
+     * References are resolved when the store calls {@link ReferenceTable#resolve()}.
+     *
+     * @param in         The reader positioned at the start of the record.
+     * @param references The table of the file being loaded.
+     * @return The decoded object.
+     */
+    default T decode(BinaryReader in, ReferenceTable references) {
+        return decode(in);
+    }
+}
@@ -0,0 +1,154 @@
+package repository.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import model.Element;
+
+/**
+ * Reads the fields written by a {@link BinaryWriter} from a byte array.
+ * <p>
+ * A reader can cover a whole file of records and be moved from one record to the next, so loading
+ * a file does not copy the records out of the array they were read into.
+ * </p>
+ */
+public final class BinaryReader {
+    private static final Element[] ELEMENTS = Element.values();
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    /**
+     * @param buffer The bytes to read.
+     */
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * @param buffer The array holding the bytes to read.
+     * @param offset The position of the first byte to read.
+     * @param length The number of bytes that may be read.
+     */
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * @return A single byte, as an unsigned value.
+     */
+    public int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * @return An integer written with {@link BinaryWriter#writeVarInt(int)}.
+     */
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            require(1);
+            byte b = buffer[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint at position " + (position - 1));
+    }
+
+    /**
+     * @return An integer written with {@link BinaryWriter#writeSignedVarInt(int)}.
+     */
+    public int readSignedVarInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return An integer written with {@link BinaryWriter#writeNullableVarInt(Integer)}, or null.
+     */
+    public Integer readNullableVarInt() {
+        int value = readVarInt();
+        return value == 0 ? null : value - 1;
+    }
+
+    /**
+     * @return A string written with {@link BinaryWriter#writeString(String)}, or null.
+     */
+    public String readString() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * @return A date written with {@link BinaryWriter#writeDate(LocalDate)}, or null.
+     */
+    public LocalDate readDate() {
+        int value = readVarInt();
+        if (value == 0) {
+            return null;
+        }
+        value--;
+        return LocalDate.ofEpochDay((value >>> 1) ^ -(value & 1));
+    }
+
+    /**
+     * @return A time written with {@link BinaryWriter#writeTime(LocalTime)}, or null.
+     */
+    public LocalTime readTime() {
+        int value = readVarInt();
+        return value == 0 ? null : LocalTime.ofSecondOfDay(value - 1);
+    }
+
+    /**
+     * @return An element written with {@link BinaryWriter#writeElement(Element)}.
+     */
+    public Element readElement() {
+        int ordinal = readVarInt();
+        if (ordinal >= ELEMENTS.length) {
+            throw new IllegalStateException("Unknown element ordinal: " + ordinal);
+        }
+        return ELEMENTS[ordinal];
+    }
+
+    /**
+     * @return The position of the next byte to read in the underlying array.
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Moves the reader to another position of the underlying array, such as the start of the next record.
+     *
+     * @param position The position of the next byte to read.
+     */
+    public void position(int position) {
+        this.position = position;
+    }
+
+    /**
+     * @return true if there are bytes left to read.
+     */
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    private void require(int length) {
+        if (length > limit - position) {
+            throw new IllegalStateException("Truncated record at position " + position);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package repository.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import model.Element;
+
+/**
+ * Writes the fields of binary records into a growable byte buffer.
+ * <p>
+ * Integers are written as varints, seven bits per byte, so small values such as IDs take one to
+ * three bytes. Strings are written as their UTF-8 length followed by the bytes. Dates are written
+ * as their epoch day and times as their second of day. Nullable values reserve 0 for null.
+ * A writer is meant to be reset and reused for every record.
+ * </p>
+ */
+public final class BinaryWriter {
+    private byte[] buffer;
+    private int size;
+
+    public BinaryWriter() {
+        this(256);
+    }
+
+    /**
+     * @param capacity The initial capacity of the buffer, in bytes.
+     */
+    public BinaryWriter(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param value The byte to write, in its low eight bits.
+     */
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes an integer as an unsigned varint. Negative values take five bytes.
+     *
+     * @param value The value to write.
+     */
+    public void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes an integer as a zigzag-encoded varint, so small negative values stay short too.
+     *
+     * @param value The value to write.
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes a nullable integer, such as an ID that may not be assigned yet.
+     *
+     * @param value The value to write, which must not be negative, or null.
+     */
+    public void writeNullableVarInt(Integer value) {
+        writeVarInt(value == null ? 0 : value + 1);
+    }
+
+    /**
+     * Writes a nullable string as its UTF-8 length plus one, followed by its bytes.
+     *
+     * @param value The string to write, or null.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Writes a nullable date as its epoch day.
+     *
+     * @param value The date to write, or null.
+     */
+    public void writeDate(LocalDate value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        int epochDay = Math.toIntExact(value.toEpochDay());
+        writeVarInt(((epochDay << 1) ^ (epochDay >> 31)) + 1);
+    }
+
+    /**
+     * Writes a nullable time as its second of day. Fractions of a second are not kept.
+     *
+     * @param value The time to write, or null.
+     */
+    public void writeTime(LocalTime value) {
+        writeVarInt(value == null ? 0 : value.toSecondOfDay() + 1);
+    }
+
+    /**
+     * Writes an element by its ordinal, so new elements must only ever be appended to {@link Element}.
+     *
+     * @param value The element to write.
+     */
+    public void writeElement(Element value) {
+        writeVarInt(value.ordinal());
+    }
+
+    /**
+     * @return The number of bytes written since the last reset.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Discards the bytes written so far, keeping the buffer for the next record.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * @return A copy of the bytes written since the last reset.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Copies the bytes written since the last reset to a stream.
+     *
+     * @param out The stream to write to.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    /**
+     * Copies the bytes written since the last reset to a buffer, at its current position.
+     *
+     * @param out The buffer to write to.
+     */
+    public void writeTo(ByteBuffer out) {
+        out.put(buffer, 0, size);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+}
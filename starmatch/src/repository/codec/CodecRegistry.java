@@ -0,0 +1,98 @@
+package repository.codec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.*;
+
+/**
+ * Maps entity types to the codecs the file-based repositories store them with.
+ * <p>
+ * Repositories look their codec up once, when they are constructed, and call it directly for every
+ * record. The default registry knows the entity types of the model; other types are plugged in by
+ * registering their codecs before a repository for them is created.
+ * </p>
+ */
+public final class CodecRegistry {
+    private static final CodecRegistry DEFAULT = createDefault();
+
+    private final Map<Class<?>, CsvCodec<?>> csvCodecs = new ConcurrentHashMap<>();
+    private final Map<Class<?>, BinaryCodec<?>> binaryCodecs = new ConcurrentHashMap<>();
+
+    /**
+     * @return The shared registry, with the codecs of the model's entity types.
+     */
+    public static CodecRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers the CSV codec of an entity type, replacing the one registered before.
+     *
+     * @param type  The entity type.
+     * @param codec The codec.
+     * @param <T>   The entity type.
+     * @return This registry.
+     */
+    public <T extends HasId> CodecRegistry registerCsv(Class<T> type, CsvCodec<T> codec) {
+        csvCodecs.put(type, codec);
+        return this;
+    }
+
+    /**
+     * Registers the binary codec of an entity type, replacing the one registered before.
+     *
+     * @param type  The entity type.
+     * @param codec The codec.
+     * @param <T>   The entity type.
+     * @return This registry.
+     */
+    public <T extends HasId> CodecRegistry registerBinary(Class<T> type, BinaryCodec<T> codec) {
+        binaryCodecs.put(type, codec);
+        return this;
+    }
+
+    /**
+     * @param type The entity type.
+     * @param <T>  The entity type.
+     * @return The CSV codec of the type.
+     * @throws IllegalArgumentException If no CSV codec is registered for the type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends HasId> CsvCodec<T> csv(Class<T> type) {
+        CsvCodec<T> codec = (CsvCodec<T>) csvCodecs.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No CSV codec registered for class: " + type.getName());
+        }
+        return codec;
+    }
+
+    /**
+     * @param type The entity type.
+     * @param <T>  The entity type.
+     * @return The binary codec of the type.
+     * @throws IllegalArgumentException If no binary codec is registered for the type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends HasId> BinaryCodec<T> binary(Class<T> type) {
+        BinaryCodec<T> codec = (BinaryCodec<T>) binaryCodecs.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No binary codec registered for class: " + type.getName());
+        }
+        return codec;
+    }
+
+    private static CodecRegistry createDefault() {
+        return new CodecRegistry()
+                .registerCsv(User.class, CsvCodec.of(User::createObjectFromFields))
+                .registerCsv(Admin.class, CsvCodec.of(fields -> (Admin) Admin.createObjectFromFields(fields)))
+                .registerCsv(Quote.class, CsvCodec.of(fields -> (Quote) Quote.createObjectFromFields(fields)))
+                .registerCsv(StarSign.class, CsvCodec.of(fields -> (StarSign) StarSign.createObjectFromFields(fields)))
+                .registerCsv(Trait.class, CsvCodec.of(fields -> (Trait) Trait.createObjectFromFields(fields)))
+                .registerBinary(User.class, new UserBinaryCodec())
+                .registerBinary(Admin.class, new AdminBinaryCodec())
+                .registerBinary(Quote.class, new QuoteBinaryCodec())
+                .registerBinary(StarSign.class, new StarSignBinaryCodec())
+                .registerBinary(Trait.class, new TraitBinaryCodec());
+    }
+}
@@ -0,0 +1,51 @@
+package repository.codec;
+
+import java.util.function.Function;
+
+import model.HasId;
+
+/**
+ * Encodes objects of one entity type to a CSV line and decodes them from the fields of one.
+ *
+ * @param <T> The type of objects encoded, which must implement HasId.
+ */
+public interface CsvCodec<T extends HasId> {
+
+    /**
+     * Converts an object to a CSV line, without a line separator.
+     *
+     * @param obj The object to encode.
+     * @return The CSV line.
+     */
+    String encode(T obj);
+
+    /**
+     * Builds an object from the fields of a CSV line.
+     *
+     * @param fields The unquoted fields of the line.
+     * @return The decoded object.
+     */
+    T decode(String[] fields);
+
+    /**
+     * Creates a codec that encodes with {@link HasId#convertObjectToLine()} and decodes with the given function,
+     * typically the entity's {@code createObjectFromFields}.
+     *
+     * @param decoder The function building an object from the fields.
+     * @param <T>     The type of objects encoded.
+     * @return The codec.
+     */
+    static <T extends HasId> CsvCodec<T> of(Function<String[], T> decoder) {
+        return new CsvCodec<>() {
+            @Override
+            public String encode(T obj) {
+                return obj.convertObjectToLine();
+            }
+
+            @Override
+            public T decode(String[] fields) {
+                return decoder.apply(fields);
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package repository.codec;
+
+import model.Quote;
+
+/**
+ * Binary codec for {@link Quote}.
+ */
+public class QuoteBinaryCodec implements BinaryCodec<Quote> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void encode(Quote quote, BinaryWriter out) {
+        out.writeNullableVarInt(quote.getId());
+        out.writeElement(quote.getElement());
+        out.writeString(quote.getQuoteText());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Quote decode(BinaryReader in) {
+        Integer id = in.readNullableVarInt();
+        return new Quote(id, in.readElement(), in.readString());
+    }
+}
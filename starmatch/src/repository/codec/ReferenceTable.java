@@ -0,0 +1,68 @@
+package repository.codec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the keys objects refer to each other by, such as a user's email, to the IDs stored in
+ * binary records in their place.
+ * <p>
+ * A store that encodes a whole file at once fills the table with every object before encoding any
+ * of them, so a reference can be written as a varint ID. When decoding, an object can refer to one
+ * that comes later in the file, so codecs register their keys as they go and defer turning IDs back
+ * into keys until the store calls {@link #resolve()} after the last record.
+ * </p>
+ */
+public final class ReferenceTable {
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+    private final Map<Integer, String> keysById = new HashMap<>();
+    private final List<Runnable> deferred = new ArrayList<>();
+
+    /**
+     * Records the key of an object.
+     *
+     * @param id  The ID of the object.
+     * @param key The key other objects refer to it by.
+     */
+    public void add(int id, String key) {
+        if (key == null) return;
+        idsByKey.put(key, id);
+        keysById.put(id, key);
+    }
+
+    /**
+     * @param key The key of an object.
+     * @return The ID of the object, or -1 if no object has that key.
+     */
+    public int idOf(String key) {
+        Integer id = idsByKey.get(key);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param id The ID of an object.
+     * @return The key of the object, or null if no object has that ID.
+     */
+    public String keyOf(int id) {
+        return keysById.get(id);
+    }
+
+    /**
+     * Defers work that needs the keys of every decoded object.
+     *
+     * @param action The work, run by {@link #resolve()}.
+     */
+    public void afterLoad(Runnable action) {
+        deferred.add(action);
+    }
+
+    /**
+     * Runs the deferred work, once every record has been decoded.
+     */
+    public void resolve() {
+        deferred.forEach(Runnable::run);
+        deferred.clear();
+    }
+}
@@ -0,0 +1,47 @@
+package repository.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Element;
+import model.StarSign;
+import model.Trait;
+
+/**
+ * Binary codec for {@link StarSign}. Unlike the CSV format, which keeps only the trait names,
+ * the traits are stored whole, with their IDs and elements.
+ */
+public class StarSignBinaryCodec implements BinaryCodec<StarSign> {
+    private final TraitBinaryCodec traitCodec = new TraitBinaryCodec();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void encode(StarSign sign, BinaryWriter out) {
+        out.writeNullableVarInt(sign.getId());
+        out.writeString(sign.getStarName());
+        out.writeElement(sign.getElement());
+        List<Trait> traits = sign.getTraits();
+        out.writeVarInt(traits.size());
+        for (Trait trait : traits) {
+            traitCodec.encode(trait, out);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StarSign decode(BinaryReader in) {
+        Integer id = in.readNullableVarInt();
+        String starName = in.readString();
+        Element element = in.readElement();
+        int traitCount = in.readVarInt();
+        List<Trait> traits = new ArrayList<>(traitCount);
+        for (int i = 0; i < traitCount; i++) {
+            traits.add(traitCodec.decode(in));
+        }
+        return new StarSign(starName, element, traits, id);
+    }
+}
@@ -0,0 +1,28 @@
+package repository.codec;
+
+import model.Trait;
+
+/**
+ * Binary codec for {@link Trait}.
+ */
+public class TraitBinaryCodec implements BinaryCodec<Trait> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void encode(Trait trait, BinaryWriter out) {
+        out.writeNullableVarInt(trait.getId());
+        out.writeElement(trait.getElement());
+        out.writeString(trait.getTraitName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Trait decode(BinaryReader in) {
+        Integer id = in.readNullableVarInt();
+        return new Trait(in.readElement(), in.readString(), id);
+    }
+}
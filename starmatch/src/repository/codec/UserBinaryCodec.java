@@ -0,0 +1,124 @@
+package repository.codec;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.User;
+
+/**
+ * Binary codec for {@link User}. The birth date is stored as its epoch day, the birth time as its
+ * second of day, and the raw friend emails as a count followed by the emails. Within a file encoded
+ * with a {@link ReferenceTable}, friends are stored as the varint IDs of the users instead; a friend
+ * email that belongs to no user of the file is left out, as the database does with its friend links.
+ */
+public class UserBinaryCodec implements BinaryCodec<User> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void encode(User user, BinaryWriter out) {
+        writeFields(user, out);
+        List<String> friendEmails = user.getRawFriendEmails();
+        out.writeVarInt(friendEmails.size());
+        for (String friendEmail : friendEmails) {
+            out.writeString(friendEmail);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void index(User user, ReferenceTable references) {
+        references.add(user.getIntId(), user.getEmail());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void encode(User user, BinaryWriter out, ReferenceTable references) {
+        writeFields(user, out);
+        List<String> friendEmails = user.getRawFriendEmails();
+        int[] friendIds = new int[friendEmails.size()];
+        int friendCount = 0;
+        for (String friendEmail : friendEmails) {
+            int friendId = references.idOf(friendEmail);
+            if (friendId >= 0) {
+                friendIds[friendCount++] = friendId;
+            }
+        }
+        out.writeVarInt(friendCount);
+        for (int i = 0; i < friendCount; i++) {
+            out.writeVarInt(friendIds[i]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public User decode(BinaryReader in) {
+        User user = readFields(in);
+        int friendCount = in.readVarInt();
+        if (friendCount > 0) {
+            List<String> friendEmails = new ArrayList<>(friendCount);
+            for (int i = 0; i < friendCount; i++) {
+                friendEmails.add(in.readString());
+            }
+            user.setRawFriendEmails(friendEmails);
+        }
+        return user;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public User decode(BinaryReader in, ReferenceTable references) {
+        User user = readFields(in);
+        references.add(user.getIntId(), user.getEmail());
+        int friendCount = in.readVarInt();
+        if (friendCount > 0) {
+            int[] friendIds = new int[friendCount];
+            for (int i = 0; i < friendCount; i++) {
+                friendIds[i] = in.readVarInt();
+            }
+            references.afterLoad(() -> {
+                List<String> friendEmails = new ArrayList<>(friendCount);
+                for (int friendId : friendIds) {
+                    String friendEmail = references.keyOf(friendId);
+                    if (friendEmail != null) {
+                        friendEmails.add(friendEmail);
+                    }
+                }
+                user.setRawFriendEmails(friendEmails);
+            });
+        }
+        return user;
+    }
+
+    private static void writeFields(User user, BinaryWriter out) {
+        out.writeVarInt(user.getIntId());
+        out.writeString(user.getName());
+        out.writeString(user.getEmail());
+        out.writeString(user.getPassword());
+        out.writeDate(user.getBirthDate());
+        out.writeTime(user.getBirthTime());
+        out.writeString(user.getBirthPlace());
+    }
+
+    private static User readFields(BinaryReader in) {
+        int id = in.readVarInt();
+        String name = in.readString();
+        String email = in.readString();
+        String password = in.readString();
+        LocalDate birthDate = in.readDate();
+        LocalTime birthTime = in.readTime();
+        String birthPlace = in.readString();
+        return new User(id, name, birthDate, birthTime, birthPlace, email, password);
+    }
+}
@@ -0,0 +1,272 @@
+package utils;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map from primitive {@code int} keys to non-null object values.
+ * <p>
+ * Keys and values are stored in two parallel arrays with open addressing and linear probing, so
+ * looking up, inserting or replacing an entry neither boxes the key nor allocates an entry node.
+ * Removal shifts the following entries of the probe sequence back instead of leaving tombstones.
+ * The map is not thread-safe.
+ * </p>
+ *
+ * @param <V> The type of the values.
+ */
+public class IntObjectMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private int modCount;
+
+    /**
+     * Constructs an empty map with the default capacity.
+     */
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty map that holds the given number of entries without resizing.
+     *
+     * @param expectedSize The expected number of entries.
+     */
+    public IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value mapped to a key.
+     *
+     * @param key The key.
+     * @return The value, or null if the key is not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * @param key The key.
+     * @return true if the key is mapped.
+     */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous value.
+     *
+     * @param key   The key.
+     * @param value The value, which must not be null.
+     * @return The previous value, or null if the key was not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectMap does not accept null values");
+        }
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        modCount++;
+        if (++size >= resizeAt) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Maps a key to a value only if the key is not mapped yet.
+     *
+     * @param key   The key.
+     * @param value The value, which must not be null.
+     * @return The current value if the key was already mapped, or null if the value was added.
+     */
+    public V putIfAbsent(int key, V value) {
+        V current = get(key);
+        return current != null ? current : put(key, value);
+    }
+
+    /**
+     * Replaces the value of a key only if the key is already mapped.
+     *
+     * @param key   The key.
+     * @param value The new value, which must not be null.
+     * @return The previous value, or null if the key was not mapped and nothing changed.
+     */
+    @SuppressWarnings("unchecked")
+    public V replace(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectMap does not accept null values");
+        }
+        int slot = findSlot(key);
+        if (slot < 0) return null;
+        V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * Removes the mapping of a key.
+     *
+     * @param key The key.
+     * @return The removed value, or null if the key was not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) return null;
+        V previous = (V) values[slot];
+        shiftBack(slot);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    /**
+     * @return The number of entries in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the map has no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries from the map.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns a live, read-only view of the values in the map.
+     * Iterating the view while the map gains or loses entries throws {@link ConcurrentModificationException}.
+     *
+     * @return The values of the map.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int findSlot(int key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties a slot and moves later entries of the same probe run back so every entry stays
+     * reachable from its home slot.
+     */
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private final int expectedModCount = modCount;
+        private int slot = advance(0);
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return slot < values.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (slot >= values.length) throw new NoSuchElementException();
+            V value = (V) values[slot];
+            slot = advance(slot + 1);
+            return value;
+        }
+    }
+}
@@ -1,5 +1,9 @@
+-- Tables of schema version 1. repository.SchemaMigrator runs this script as its first migration
+-- and adds the indexes of the later versions, so a database is created by opening it through
+-- a ConnectionPool rather than by running this script by hand.
+
 -- Table for User
-CREATE TABLE User (
+CREATE TABLE IF NOT EXISTS User (
                       id INTEGER PRIMARY KEY,
                       name TEXT NOT NULL,
                       birth_date DATE,
@@ -10,7 +14,7 @@ CREATE TABLE User (
 );
 
 -- Table for Admin
-CREATE TABLE Admin (
+CREATE TABLE IF NOT EXISTS Admin (
                        id INTEGER PRIMARY KEY,
                        name TEXT NOT NULL,
                        email TEXT UNIQUE NOT NULL,
@@ -18,7 +22,7 @@ CREATE TABLE Admin (
 );
 
 -- Table for Compatibility
-CREATE TABLE Compatibility (
+CREATE TABLE IF NOT EXISTS Compatibility (
                                user_id INTEGER NOT NULL,
                                friend_id INTEGER NOT NULL,
                                compatibility_score BIGINT NOT NULL,
@@ -28,14 +32,14 @@ CREATE TABLE Compatibility (
 );
 
 -- Table for Quote
-CREATE TABLE Quote (
+CREATE TABLE IF NOT EXISTS Quote (
                        id INTEGER PRIMARY KEY,
                        element TEXT NOT NULL,
                        quote_text TEXT NOT NULL
 );
 
 -- Table for User_Friends (for managing friends as a many-to-many relationship)
-CREATE TABLE User_Friends (
+CREATE TABLE IF NOT EXISTS User_Friends (
                               user_id INTEGER NOT NULL,
                               friend_id INTEGER NOT NULL,
                               PRIMARY KEY (user_id, friend_id),
@@ -0,0 +1,105 @@
+package repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import model.Element;
+import model.HasId;
+import model.Quote;
+import model.Trait;
+import model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.DBRepo.QuoteDBRepository;
+import repository.DBRepo.TraitDBRepository;
+import repository.DBRepo.UserDBRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the queries behind the service's filters run on the secondary indexes of the schema,
+ * and that they return what the in-memory implementations return.
+ */
+class IndexUsageTest {
+    private Path dbFile;
+    private ConnectionPool pool;
+    private DBRepository<User> users;
+    private DBRepository<Quote> quotes;
+    private DBRepository<Trait> traits;
+
+    @BeforeEach
+    void openDatabase() throws IOException {
+        dbFile = Files.createTempFile("starmatch", ".db");
+        pool = new ConnectionPool("jdbc:sqlite:" + dbFile, "", "");
+        users = new UserDBRepository(pool);
+        quotes = new QuoteDBRepository(pool);
+        traits = new TraitDBRepository(pool);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException, IOException {
+        pool.close();
+        Files.deleteIfExists(dbFile);
+    }
+
+    @Test
+    void usersByBirthPlaceUseTheBirthPlaceIndex() {
+        assertUsesIndex(users.explainQueryPlan(users.getSelectWhereSql("birth_place"), "Cluj"), "idx_user_birth_place");
+    }
+
+    @Test
+    void usersByBirthYearUseTheBirthDateIndex() {
+        assertUsesIndex(users.explainQueryPlan(users.getSelectRangeSql("birth_date"), "2000-01-01", "2001-01-01"), "idx_user_birth_date");
+    }
+
+    @Test
+    void quotesByElementUseTheElementIndex() {
+        assertUsesIndex(quotes.explainQueryPlan(quotes.getSelectWhereSql("element"), "Fire"), "idx_quote_element");
+    }
+
+    @Test
+    void traitsOrderedByElementUseTheElementIndex() {
+        List<String> plan = traits.explainQueryPlan(traits.getSelectOrderedSql("element"));
+        assertUsesIndex(plan, "idx_trait_element");
+        assertTrue(plan.stream().noneMatch(step -> step.contains("TEMP B-TREE")), "sorted without a temporary b-tree: " + plan);
+    }
+
+    @Test
+    void queriesMatchTheInMemoryRepository() {
+        InMemoryRepository<User> memoryUsers = new InMemoryRepository<>();
+        List<User> created = List.of(
+                new User(1, "Amna", LocalDate.of(2000, 3, 12), LocalTime.of(9, 0), "Cluj", "amna@gmail.com", "parola"),
+                new User(2, "Bogdan", LocalDate.of(2000, 12, 31), LocalTime.of(10, 0), "Iasi", "bogdan@gmail.com", "parola"),
+                new User(3, "Carla", LocalDate.of(2001, 1, 1), LocalTime.of(11, 0), "Cluj", "carla@gmail.com", "parola"));
+        users.createAll(created);
+        memoryUsers.createAll(created);
+        assertEquals(ids(memoryUsers.findBy("birthPlace", "Cluj")), ids(users.findBy("birthPlace", "Cluj")));
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2001, 1, 1);
+        assertEquals(ids(memoryUsers.findInRange("birthDate", from, to)), ids(users.findInRange("birthDate", from, to)));
+
+        InMemoryRepository<Trait> memoryTraits = new InMemoryRepository<>();
+        List<Trait> createdTraits = List.of(new Trait(Element.Water, "Calm", 1), new Trait(Element.Air, "Curious", 2),
+                new Trait(Element.Fire, "Bold", 3), new Trait(Element.Earth, "Steady", 4));
+        traits.createAll(createdTraits);
+        memoryTraits.createAll(createdTraits);
+        assertEquals(List.of(2, 4, 3, 1), traits.getAllOrderedBy("element").stream().map(Trait::getId).toList());
+        assertEquals(List.of(2, 4, 3, 1), memoryTraits.getAllOrderedBy("element").stream().map(Trait::getId).toList());
+    }
+
+    private static void assertUsesIndex(List<String> plan, String index) {
+        assertTrue(plan.stream().anyMatch(step -> step.contains("USING INDEX " + index) || step.contains("USING COVERING INDEX " + index)),
+                "expected " + index + " in " + plan);
+    }
+
+    private static List<Integer> ids(List<? extends HasId> objects) {
+        return objects.stream().map(HasId::getId).sorted().toList();
+    }
+}
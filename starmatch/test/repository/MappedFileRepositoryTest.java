@@ -0,0 +1,104 @@
+package repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that objects written to a mapped store are read back as written, after the store is reopened.
+ */
+class MappedFileRepositoryTest {
+    private static final int SLOT_SIZE = 256;
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("starmatch", ".map");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void objectsSurviveReopening() throws IOException {
+        try (MappedFileRepository<User> users = open()) {
+            users.create(user(1, "Ana", "ana@example.com"));
+            users.create(user(2, "Bogdan", "bogdan@example.com"));
+        }
+
+        try (MappedFileRepository<User> users = open()) {
+            assertUser(users.get(1), "Ana", "ana@example.com");
+            assertUser(users.get(2), "Bogdan", "bogdan@example.com");
+            assertNull(users.get(3));
+        }
+    }
+
+    @Test
+    void updatesSurviveReopening() throws IOException {
+        try (MappedFileRepository<User> users = open()) {
+            User ana = user(1, "Ana", "ana@example.com");
+            ana.setRawFriendEmails(List.of("bogdan@example.com"));
+            users.create(ana);
+            users.create(user(2, "Bogdan", "bogdan@example.com"));
+        }
+
+        try (MappedFileRepository<User> users = open()) {
+            User ana = users.get(1);
+            ana.setName("Ana Maria");
+            ana.setRawFriendEmails(List.of());
+            users.update(ana);
+        }
+
+        try (MappedFileRepository<User> users = open()) {
+            User ana = users.get(1);
+            assertUser(ana, "Ana Maria", "ana@example.com");
+            assertEquals(List.of(), ana.getRawFriendEmails());
+            assertEquals(ana.getId(), users.findByUnique("email", "ana@example.com").getId());
+            assertEquals(List.of(1, 2), users.getAll().stream().map(User::getId).toList());
+        }
+    }
+
+    @Test
+    void deletesSurviveReopening() throws IOException {
+        try (MappedFileRepository<User> users = open()) {
+            users.create(user(1, "Ana", "ana@example.com"));
+            users.create(user(2, "Bogdan", "bogdan@example.com"));
+            users.delete(1);
+        }
+
+        try (MappedFileRepository<User> users = open()) {
+            assertNull(users.get(1));
+            assertNull(users.findByUnique("email", "ana@example.com"));
+            assertEquals(List.of(2), users.getAll().stream().map(User::getId).toList());
+        }
+    }
+
+    private MappedFileRepository<User> open() {
+        return new MappedFileRepository<>(file.toString(), User.class, SLOT_SIZE);
+    }
+
+    private static User user(int id, String name, String email) {
+        return new User(id, name, LocalDate.of(2000, 1, id), LocalTime.NOON, "Cluj", email, "secret");
+    }
+
+    private static void assertUser(User user, String name, String email) {
+        assertEquals(name, user.getName());
+        assertEquals(email, user.getEmail());
+        assertEquals("Cluj", user.getBirthPlace());
+    }
+}